@@ -36,20 +36,34 @@ import com.google.cloud.datastore.Key;
 import com.google.cloud.datastore.KeyFactory;
 import com.google.cloud.datastore.Query;
 import com.google.cloud.datastore.StructuredQuery;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Streams;
+import io.spine.annotation.Internal;
 import io.spine.server.storage.datastore.record.RecordId;
 import io.spine.server.storage.datastore.tenant.Namespace;
 import io.spine.server.storage.datastore.tenant.NamespaceSupplier;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.Streams.stream;
 
 /**
  * A common interface for those who wrap {@link DatastoreReaderWriter}s and provide their own
  * API facade on top of them.
+ *
+ * <p>Besides the blocking operations, the medium offers their asynchronous counterparts. Those
+ * allow to start several independent reads and writes and then join them. The asynchronous
+ * operations are run according to the {@linkplain #execution() execution} of the medium.
+ * Everything which depends on the current Tenant, such as the namespace of a query, is
+ * determined in the caller thread.
  */
 public abstract class DatastoreMedium {
 
@@ -164,6 +178,294 @@ public abstract class DatastoreMedium {
      */
     public abstract void delete(Key... keys);
 
+    /**
+     * Returns the way this medium runs the independent and the asynchronous operations.
+     *
+     * <p>By default, the operations are run {@linkplain ParallelExecution#sequential()
+     * sequentially} in the caller thread.
+     */
+    @Internal
+    public ParallelExecution execution() {
+        return ParallelExecution.sequential();
+    }
+
+    /**
+     * Asynchronously writes the {@link Entity entities} to the Datastore or modifies
+     * the existing ones.
+     *
+     * <p>The operation is run according to the {@linkplain #execution() execution} of this
+     * medium. If it is sequential, the entities are written before this method returns.
+     *
+     * @param entities
+     *         a {@link Collection} of {@link Entity Entities} to write or update
+     * @return the future completed when the entities are written
+     * @see #createOrUpdate(Collection)
+     */
+    public CompletableFuture<Void> createOrUpdateAsync(Collection<Entity> entities) {
+        ImmutableList<Entity> toWrite = ImmutableList.copyOf(entities);
+        return execution().supply(() -> {
+            createOrUpdate(toWrite);
+            return null;
+        });
+    }
+
+    /**
+     * Asynchronously retrieves an {@link Entity} with the given key from the Datastore.
+     *
+     * @param key
+     *         {@link Key} to search for
+     * @return the future {@link Entity}, or {@code Optional.empty()} if there is no entity
+     *         with such a key
+     * @see #read(Key)
+     */
+    public CompletableFuture<Optional<Entity>> readAsync(Key key) {
+        checkNotNull(key);
+        return execution().supply(() -> read(key));
+    }
+
+    /**
+     * Asynchronously retrieves an {@link Entity} for each of the given keys.
+     *
+     * @param keys
+     *         {@link Key Keys} to search for
+     * @return the future {@code List} of the found entities in the order of keys, with
+     *         {@code null} values for nonexistent keys
+     * @see #lookup(List)
+     */
+    public CompletableFuture<List<@Nullable Entity>> lookupAsync(List<Key> keys) {
+        DsReaderLookup lookup = readerLookup(execution());
+        return lookup.findAsync(keys);
+    }
+
+    /**
+     * Asynchronously queries the Datastore with the given arguments.
+     *
+     * <p>The namespace of the query is determined in the caller thread. The first page of
+     * the results is fetched asynchronously; the following pages, if any, are fetched
+     * as the returned iterator is traversed.
+     *
+     * @param query
+     *         {@link Query} to execute upon the Datastore
+     * @param <R>
+     *         the type of queried objects
+     * @return the future results of the query
+     * @see #read(StructuredQuery)
+     */
+    public <R> CompletableFuture<DsQueryIterator<R>> readAsync(StructuredQuery<R> query) {
+        checkNotNull(query);
+        Namespace namespace = namespace();
+        DsReaderLookup lookup = readerLookup(ParallelExecution.sequential());
+        return execution().supply(() -> lookup.execute(query, namespace));
+    }
+
+    /**
+     * Runs the passed queries concurrently and reads their results with the given function.
+     *
+     * <p>The namespace of the queries is determined in the caller thread. Up to
+     * {@code maxConcurrentQueries} queries are run at the same time via the
+     * {@linkplain #execution() execution} of this medium. The {@code reader} is called in
+     * the thread running the query, once the first page of the query results is fetched.
+     * It may either traverse the results, or return the iterator as-is, leaving the following
+     * pages to be fetched by the caller.
+     *
+     * <p>If the execution of this medium is sequential, the queries are run one after another
+     * in the caller thread.
+     *
+     * @param queries
+     *         the queries to run
+     * @param maxConcurrentQueries
+     *         the maximum number of queries run at the same time; must be positive
+     * @param reader
+     *         the function reading the results of a single query
+     * @param <R>
+     *         the type of queried objects
+     * @param <V>
+     *         the type of the read results
+     * @return the read results in the order of the queries
+     * @throws ParallelExecutionException
+     *         if the queries are run in parallel, and at least one of them has failed
+     * @see #read(StructuredQuery)
+     */
+    @Internal
+    public <R, V> ImmutableList<V>
+    readConcurrently(List<StructuredQuery<R>> queries,
+                     int maxConcurrentQueries,
+                     Function<? super DsQueryIterator<R>, ? extends V> reader) {
+        checkNotNull(queries);
+        checkNotNull(reader);
+        checkArgument(maxConcurrentQueries > 0,
+                      "The maximum number of concurrent queries must be positive, but got %s.",
+                      maxConcurrentQueries);
+        Namespace namespace = namespace();
+        DsReaderLookup lookup = readerLookup(ParallelExecution.sequential());
+        ParallelExecution execution = execution().limitedTo(maxConcurrentQueries);
+        return execution.map(queries, query -> reader.apply(lookup.execute(query, namespace)));
+    }
+
+    /**
+     * Splits the passed query into several queries, each reading its own range of keys.
+     *
+     * <p>The boundaries of the ranges are chosen from a sample of the keys, so that the ranges
+     * hold about the same number of entities. The ranges do not overlap, and together they
+     * cover all the entities read by the passed query. Therefore, the resulting queries may be
+     * run independently, e.g. in parallel, instead of a single full scan of the kind.
+     *
+     * <p>Fewer queries than requested are returned if there are not enough entities to sample.
+     * If the kind has no more than one such entity, the passed query is returned as-is.
+     *
+     * <p>The keys are sampled by a separate query, which is run before this method returns.
+     * The query relies on the {@code __scatter__} property, which the Datastore emulator
+     * does not support.
+     *
+     * @param query
+     *         the query to split; must have neither filter, nor sorting, nor limit, nor cursors
+     * @param partitionCount
+     *         the desired number of the queries; must be positive
+     * @param <R>
+     *         the type of queried objects
+     * @return the queries reading the ranges of keys, in the order of keys
+     * @throws IllegalArgumentException
+     *         if the query cannot be split, or the {@code partitionCount} is not positive
+     */
+    public <R> ImmutableList<StructuredQuery<R>>
+    partition(StructuredQuery<R> query, int partitionCount) {
+        checkNotNull(query);
+        checkArgument(KeyRanges.canSplit(query),
+                      "Only the queries with no filter, sorting, limit or cursors may be split.");
+        checkArgument(partitionCount > 0,
+                      "The number of partitions must be positive, but got %s.", partitionCount);
+        if (partitionCount == 1) {
+            return ImmutableList.of(query);
+        }
+        StructuredQuery<Key> sampleQuery = KeyRanges.sampleQuery(query, partitionCount);
+        ImmutableList<Key> sample = ImmutableList.copyOf(read(sampleQuery));
+        ImmutableList<Key> boundaries = KeyRanges.boundaries(sample, partitionCount);
+        return KeyRanges.split(query, boundaries);
+    }
+
+    /**
+     * Queries the Datastore for all entities matching query, reading the next pages ahead.
+     *
+     * <p>Read is performed from datastore using batches of the specified size, which leads to
+     * multiple queries being executed. Up to {@code prefetchPages} of the next pages are read
+     * in the background, so that the consumer processes the current page while the next ones
+     * are on their way.
+     *
+     * <p>The query for the next page requires the cursor after the current one. So the pages
+     * are requested one after another. To read several ranges of keys at the same time,
+     * {@linkplain #partition(StructuredQuery, int) partition} the query explicitly.
+     *
+     * <p>The pages are read in the background according to the {@link ParallelExecution} of
+     * this medium. If the execution is sequential, this method works as
+     * {@link DatastoreWrapper#readAll(StructuredQuery, int)}.
+     *
+     * <p>The resulting {@code Iterator} is evaluated lazily. A call to
+     * {@link Iterator#remove() Iterator.remove()} causes an {@link UnsupportedOperationException}.
+     *
+     * @param query
+     *         {@link Query} to execute upon the Datastore
+     * @param pageSize
+     *         a positive number of elements to be returned per a single read from Datastore
+     * @param prefetchPages
+     *         a positive number of the pages to read ahead of the consumer
+     * @param <R>
+     *         the type of queried objects
+     * @return results fo the query as a lazily evaluated {@link Iterator}
+     * @throws IllegalArgumentException
+     *         if the provided {@linkplain StructuredQuery#getLimit() query includes a limit}, or
+     *         either {@code pageSize} or {@code prefetchPages} is not positive
+     */
+    public <R> Iterator<R>
+    readAll(StructuredQuery<R> query, int pageSize, int prefetchPages) {
+        checkNotNull(query);
+        checkArgument(pageSize > 0,
+                      "The size of a single read operation must be positive, but got %s.",
+                      pageSize);
+        checkArgument(prefetchPages > 0,
+                      "The number of pages to prefetch must be positive, but got %s.",
+                      prefetchPages);
+        checkArgument(query.getLimit() == null,
+                      "Cannot limit a number of entities for \"read all\" operation.");
+        ParallelExecution execution = execution();
+        if (execution.isSequential()) {
+            return readAllPageByPage(query, pageSize);
+        }
+        DsReaderLookup lookup = readerLookup(ParallelExecution.sequential());
+        DsPrefetchingPageIterator<R> pages =
+                new DsPrefetchingPageIterator<>(limit(query, pageSize), lookup, namespace(),
+                                                execution, prefetchPages);
+        return stream(pages)
+                .flatMap(List::stream)
+                .iterator();
+    }
+
+    /**
+     * Queries the Datastore for all entities matching query, executing queries split in batches.
+     *
+     * <p>Read is performed from datastore using batches of the specified size, which leads to
+     * multiple queries being executed.
+     *
+     * <p>The resulting {@code Iterator} is evaluated lazily. A call to
+     * {@link Iterator#remove() Iterator.remove()} causes an {@link UnsupportedOperationException}.
+     *
+     * @param query
+     *         a {@link Query} to execute upon the Datastore
+     * @param pageSize
+     *         a non-zero number of elements to be returned per a single read from Datastore;
+     *         if {@code null} the page size will be dictated by the Datastore
+     * @param <R>
+     *         the type of queried objects
+     * @return results fo the query as a lazily evaluated {@link Iterator}
+     * @throws IllegalArgumentException
+     *         if the provided {@linkplain StructuredQuery#getLimit() query includes a limit} or
+     *         the provided {@code batchSize} is 0
+     */
+    <R> Iterator<R>
+    readAllPageByPage(StructuredQuery<R> query, @Nullable Integer pageSize) {
+        checkArgument(query.getLimit() == null,
+                      "Cannot limit a number of entities for \"read all\" operation.");
+        checkArgument(pageSize == null || pageSize != 0,
+                      "The size of a single read operation cannot be 0.");
+
+        StructuredQuery<R> limitedQuery = limit(query, pageSize);
+        return stream(new DsQueryPageIterator<>(limitedQuery, this))
+                .flatMap(Streams::stream)
+                .iterator();
+    }
+
+    private static <R> StructuredQuery<R> limit(StructuredQuery<R> query,
+                                                @Nullable Integer batchSize) {
+        return batchSize == null
+               ? query
+               : query.toBuilder()
+                      .setLimit(batchSize)
+                      .build();
+    }
+
+    /**
+     * Asynchronously deletes all existing Datastore Entities with the passed keys.
+     *
+     * @return the future completed when the entities are deleted
+     * @see #delete(Key...)
+     */
+    public CompletableFuture<Void> deleteAsync(Key... keys) {
+        Key[] toDelete = keys.clone();
+        return execution().supply(() -> {
+            delete(toDelete);
+            return null;
+        });
+    }
+
+    /**
+     * Creates a lookup, which reads from the Datastore wrapped by this medium.
+     *
+     * @param execution
+     *         the way to fetch the independent pages of a bulk lookup
+     */
+    DsReaderLookup readerLookup(ParallelExecution execution) {
+        return new DsReaderLookup(storage(), execution);
+    }
+
     /**
      * Returns the Datastore namespace which corresponds to the current Tenant.
      *
@@ -43,11 +43,19 @@ import io.spine.server.storage.RecordSpec;
 import io.spine.server.storage.RecordStorage;
 import io.spine.server.storage.Storage;
 import io.spine.server.storage.StorageFactory;
+import io.spine.server.storage.datastore.config.CompressionSetting;
+import io.spine.server.storage.datastore.config.CompressionSettings;
 import io.spine.server.storage.datastore.config.CreateEntityStorage;
 import io.spine.server.storage.datastore.config.CreateRecordStorage;
 import io.spine.server.storage.datastore.config.CreateStorage;
 import io.spine.server.storage.datastore.config.CustomStorages;
 import io.spine.server.storage.datastore.config.DsColumnMapping;
+import io.spine.server.storage.datastore.config.GroupCommitSetting;
+import io.spine.server.storage.datastore.config.GroupCommitSettings;
+import io.spine.server.storage.datastore.config.QueryConcurrency;
+import io.spine.server.storage.datastore.config.QueryConcurrencySettings;
+import io.spine.server.storage.datastore.config.ReadConsistency;
+import io.spine.server.storage.datastore.config.ReadConsistencySettings;
 import io.spine.server.storage.datastore.config.RecordLayout;
 import io.spine.server.storage.datastore.config.RecordLayouts;
 import io.spine.server.storage.datastore.config.StorageConfiguration;
@@ -62,8 +70,10 @@ import io.spine.server.storage.datastore.tenant.NsConverterFactory;
 import io.spine.server.storage.datastore.tenant.PrefixedNsConverterFactory;
 import io.spine.server.tenant.TenantIndex;
 
+import java.time.Duration;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Executor;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Strings.nullToEmpty;
@@ -122,6 +132,26 @@ public class DatastoreStorageFactory implements StorageFactory, Logging {
      */
     private final TxSettings txSettings;
 
+    /**
+     * The settings of the group commit, per each stored record type.
+     */
+    private final GroupCommitSettings groupCommitSettings;
+
+    /**
+     * The settings of query concurrency, per each stored record type.
+     */
+    private final QueryConcurrencySettings queryConcurrencySettings;
+
+    /**
+     * The settings of read consistency, per each stored record type.
+     */
+    private final ReadConsistencySettings readConsistencySettings;
+
+    /**
+     * The settings of record compression, per each stored record type.
+     */
+    private final CompressionSettings compressionSettings;
+
     /**
      * The set of functions producing custom storage implementations, if set by library end-users.
      */
@@ -132,13 +162,24 @@ public class DatastoreStorageFactory implements StorageFactory, Logging {
      */
     private final RecordLayouts recordLayouts;
 
+    /**
+     * The way the Datastore wrappers send the independent requests, such as the chunks
+     * of a bulk write.
+     */
+    private final ParallelExecution execution;
+
     protected DatastoreStorageFactory(Builder builder) {
         this.columnMapping = builder.columnMapping;
         this.datastore = builder.datastore;
         this.converterFactory = builder.converterFactory;
         this.txSettings = builder.txSettings.build();
+        this.groupCommitSettings = builder.groupCommitSettings.build();
+        this.queryConcurrencySettings = builder.queryConcurrencySettings.build();
+        this.readConsistencySettings = builder.readConsistencySettings.build();
+        this.compressionSettings = builder.compressionSettings.build();
         this.customStorages = builder.customStorages.build();
         this.recordLayouts = builder.layouts.build();
+        this.execution = builder.execution;
     }
 
     /**
@@ -177,11 +218,19 @@ public class DatastoreStorageFactory implements StorageFactory, Logging {
         DatastoreWrapper wrapper = wrapperFor(context);
         Class<? extends Message> recordType = spec.sourceType();
         TxSetting behavior = txSettings.find(recordType);
+        GroupCommitSetting groupCommit = groupCommitSettings.find(recordType);
+        QueryConcurrency queryConcurrency = queryConcurrencySettings.find(recordType);
+        ReadConsistency readConsistency = readConsistencySettings.find(recordType);
+        CompressionSetting compression = compressionSettings.find(recordType);
         RecordLayout<I, R> layout = recordLayouts.find(recordType);
         DsEntitySpec<I, R> dsSpec = new DsEntitySpec<>(spec, layout);
         StorageConfiguration<I, R> configuration = StorageConfiguration.<I, R>newBuilder()
                 .withDatastore(wrapper)
                 .withTxSetting(behavior)
+                .withGroupCommit(groupCommit)
+                .withQueryConcurrency(queryConcurrency)
+                .withReadConsistency(readConsistency)
+                .withCompression(compression)
                 .withContext(context)
                 .withMapping(columnMapping)
                 .withRecordSpec(dsSpec)
@@ -234,6 +283,15 @@ public class DatastoreStorageFactory implements StorageFactory, Logging {
         return Iterables.concat(contextWrappers.values(), sysWrappers.values());
     }
 
+    /**
+     * Returns the way the Datastore wrappers created by this factory send
+     * the independent requests.
+     */
+    @VisibleForTesting
+    protected ParallelExecution execution() {
+        return execution;
+    }
+
     /**
      * Returns the instance of wrapped {@link Datastore}.
      */
@@ -284,7 +342,7 @@ public class DatastoreStorageFactory implements StorageFactory, Logging {
     @VisibleForTesting
     protected DatastoreWrapper newDatastoreWrapper(boolean multitenant) {
         NamespaceSupplier supplier = createNamespaceSupplier(multitenant);
-        return wrap(datastore, supplier);
+        return wrap(datastore, supplier, execution);
     }
 
     /**
@@ -318,8 +376,17 @@ public class DatastoreStorageFactory implements StorageFactory, Logging {
         private NamespaceConverter namespaceConverter;
         private NsConverterFactory converterFactory;
         private final TxSettings.Builder txSettings = TxSettings.newBuilder();
+        private final GroupCommitSettings.Builder groupCommitSettings =
+                GroupCommitSettings.newBuilder();
+        private final QueryConcurrencySettings.Builder queryConcurrencySettings =
+                QueryConcurrencySettings.newBuilder();
+        private final ReadConsistencySettings.Builder readConsistencySettings =
+                ReadConsistencySettings.newBuilder();
+        private final CompressionSettings.Builder compressionSettings =
+                CompressionSettings.newBuilder();
         private final RecordLayouts.Builder layouts = RecordLayouts.newBuilder();
         private final CustomStorages.Builder customStorages = CustomStorages.newBuilder();
+        private ParallelExecution execution;
 
         /** Avoid direct initialization. */
         private Builder() {
@@ -390,6 +457,131 @@ public class DatastoreStorageFactory implements StorageFactory, Logging {
             return this;
         }
 
+        /**
+         * Enables the group commit for the single-record writes of the given type of stored
+         * records.
+         *
+         * <p>By default, each single-record write is sent to Datastore in its own request.
+         * With the group commit, concurrent writes to the same storage and namespace are held for
+         * up to the {@code window}, or until {@code maxBatchSize} of them are collected. Then
+         * they are sent in a single multi-entity request. If several writes to the same record
+         * are held together, the last one wins.
+         *
+         * <p>Each writer is blocked until its batch is written. If the batch fails, its entities
+         * are written one by one, so that each writer observes its own outcome.
+         *
+         * <p>The group commit trades latency of a single write for throughput. It is reasonable
+         * for the record types written by many threads at the same time.
+         *
+         * @param recordType
+         *         the stored type
+         * @param window
+         *         the maximum time to hold a write while waiting for the other writes
+         *         to join the batch; must be positive
+         * @param maxBatchSize
+         *         the number of entities, upon reaching which the batch is sent immediately;
+         *         must be between 2 and 500
+         * @param <R>
+         *         the stored type
+         * @return this instance of {@code Builder}
+         */
+        @CanIgnoreReturnValue
+        public <R extends Message>
+        Builder enableGroupCommit(Class<R> recordType, Duration window, int maxBatchSize) {
+            checkNotNull(recordType);
+            checkNotNull(window);
+            groupCommitSettings.add(recordType, GroupCommitSetting.enabled(window, maxBatchSize));
+            return this;
+        }
+
+        /**
+         * Enables running the Datastore queries concurrently when reading the records
+         * of the given type.
+         *
+         * <p>Datastore does not support "OR" filters natively. Therefore, a record query with
+         * an "OR" predicate is run as several Datastore queries, one per each disjunct.
+         * By default, they are run one after another. With this setting, up to
+         * {@code maxConcurrentQueries} of them are started at the same time, so that the latency
+         * of such a record query is close to the one of its slowest Datastore query.
+         * The results are then merged, with the duplicate entities removed.
+         *
+         * <p>The queries are run via the executor {@linkplain #useExecutor(Executor, int) set}
+         * for this factory. If no executor is set, the queries are run one after another
+         * regardless of this setting.
+         *
+         * @param recordType
+         *         the stored type
+         * @param maxConcurrentQueries
+         *         the maximum number of Datastore queries run at the same time for a single
+         *         record query; must be positive
+         * @param <R>
+         *         the stored type
+         * @return this instance of {@code Builder}
+         */
+        @CanIgnoreReturnValue
+        public <R extends Message>
+        Builder enableConcurrentQueries(Class<R> recordType, int maxConcurrentQueries) {
+            checkNotNull(recordType);
+            queryConcurrencySettings.add(recordType, QueryConcurrency.upTo(maxConcurrentQueries));
+            return this;
+        }
+
+        /**
+         * Enables the eventually consistent reads of the records of the given type.
+         *
+         * <p>By default, Datastore lookups and queries are strongly consistent. With this setting,
+         * the storage reads the records outside of transactions with eventual consistency.
+         * Such reads have lower latency, but may miss the most recent writes. It is reasonable
+         * for the record types which tolerate slightly stale data, such as projections.
+         *
+         * <p>If the {@linkplain #enableTransactions(Class) transactions} are enabled for
+         * the same type, the transactional reads stay strongly consistent.
+         *
+         * @param recordType
+         *         the stored type
+         * @param <R>
+         *         the stored type
+         * @return this instance of {@code Builder}
+         */
+        @CanIgnoreReturnValue
+        public <R extends Message> Builder enableEventualConsistency(Class<R> recordType) {
+            checkNotNull(recordType);
+            readConsistencySettings.add(recordType, ReadConsistency.eventual());
+            return this;
+        }
+
+        /**
+         * Enables the compression of the stored records of the given type.
+         *
+         * <p>By default, the records are stored as serialized Protobuf messages. With this
+         * setting, the records serialized into at least {@code minSize} bytes are compressed
+         * with Deflate before being stored. The smaller records are stored as-is, as well as
+         * the records which do not get smaller upon the compression.
+         *
+         * <p>The compression lowers the storage costs and the size of Datastore requests,
+         * at the cost of some CPU time. It is reasonable for the large records, which contain
+         * repetitive data, such as aggregate snapshots or projection states.
+         *
+         * <p>The compressed records are told apart by their header. Therefore, the records
+         * written before the compression was enabled stay readable, as well as the compressed
+         * records after it is disabled.
+         *
+         * @param recordType
+         *         the stored type
+         * @param minSize
+         *         the minimum size of a serialized record to compress, in bytes;
+         *         must not be negative
+         * @param <R>
+         *         the stored type
+         * @return this instance of {@code Builder}
+         */
+        @CanIgnoreReturnValue
+        public <R extends Message> Builder enableCompression(Class<R> recordType, int minSize) {
+            checkNotNull(recordType);
+            compressionSettings.add(recordType, CompressionSetting.enabled(minSize));
+            return this;
+        }
+
         /**
          * Tells to use a custom function to create a record storage when this factory is
          * asked to provide a storage for a specified record type.
@@ -471,6 +663,30 @@ public class DatastoreStorageFactory implements StorageFactory, Logging {
             return this;
         }
 
+        /**
+         * Sets the executor to send the independent Datastore requests concurrently.
+         *
+         * <p>Datastore limits the number of entities written in a single request. Therefore,
+         * large bulk writes are split into chunks. By default, the chunks are sent one after
+         * another in the caller thread. With this setting, up to {@code maxConcurrentRequests}
+         * chunks are sent at the same time via the passed executor.
+         *
+         * <p>The caller thread is blocked until all the chunks are written. So the executor
+         * should not be the one running the callers of the storages.
+         *
+         * @param executor
+         *         the executor to send the requests
+         * @param maxConcurrentRequests
+         *         the maximum number of requests sent at the same time; must be positive
+         * @return this instance of {@code Builder}
+         */
+        @CanIgnoreReturnValue
+        public Builder useExecutor(Executor executor, int maxConcurrentRequests) {
+            checkNotNull(executor);
+            this.execution = ParallelExecution.using(executor, maxConcurrentRequests);
+            return this;
+        }
+
         /**
          * Creates a new instance of {@code DatastoreStorageFactory} with the passed parameters.
          *
@@ -487,9 +703,16 @@ public class DatastoreStorageFactory implements StorageFactory, Logging {
         private Builder withDefaults() {
             setupMapping();
             setupNsConverter();
+            setupExecution();
             return this;
         }
 
+        private void setupExecution() {
+            if (execution == null) {
+                execution = ParallelExecution.sequential();
+            }
+        }
+
         private void setupNsConverter() {
             if (namespaceConverter == null) {
                 converterFactory = NsConverterFactory.defaults();
@@ -39,26 +39,27 @@ import com.google.cloud.datastore.StructuredQuery;
 import com.google.cloud.datastore.Transaction;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Supplier;
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Streams;
+import com.google.datastore.v1.TransactionOptions;
+import io.spine.annotation.Internal;
 import io.spine.logging.Logging;
 import io.spine.server.storage.datastore.record.Entities;
+import io.spine.server.storage.datastore.record.RecordChunks;
 import io.spine.server.storage.datastore.record.RecordId;
 import io.spine.server.storage.datastore.tenant.Namespace;
 import io.spine.server.storage.datastore.tenant.NamespaceSupplier;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 
-import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.collect.Streams.stream;
-import static java.lang.Math.min;
 import static java.util.stream.Collectors.toList;
 
 /**
@@ -66,10 +67,12 @@ import static java.util.stream.Collectors.toList;
  */
 public class DatastoreWrapper extends DatastoreMedium implements Logging {
 
-    static final int MAX_ENTITIES_PER_WRITE_REQUEST = 500;
+    private final ParallelExecution execution;
+    private final KeyTemplates keyTemplates;
 
     /**
-     * Creates a new instance of {@code DatastoreWrapper}.
+     * Creates a new instance of {@code DatastoreWrapper} which sends all the requests
+     * sequentially.
      *
      * @param datastore
      *         {@link Datastore} to wrap
@@ -78,7 +81,26 @@ public class DatastoreWrapper extends DatastoreMedium implements Logging {
      *         the queries from the datastore
      */
     protected DatastoreWrapper(Datastore datastore, NamespaceSupplier supplier) {
+        this(datastore, supplier, ParallelExecution.sequential());
+    }
+
+    /**
+     * Creates a new instance of {@code DatastoreWrapper}.
+     *
+     * @param datastore
+     *         {@link Datastore} to wrap
+     * @param supplier
+     *         an instance of {@link Supplier Supplier&lt;Namespace&gt;} to get the namespaces for
+     *         the queries from the datastore
+     * @param execution
+     *         the way to send the independent requests, such as the chunks of a bulk write
+     */
+    protected DatastoreWrapper(Datastore datastore,
+                               NamespaceSupplier supplier,
+                               ParallelExecution execution) {
         super(datastore, supplier);
+        this.execution = checkNotNull(execution);
+        this.keyTemplates = new KeyTemplates(datastore);
     }
 
     /**
@@ -88,10 +110,25 @@ public class DatastoreWrapper extends DatastoreMedium implements Logging {
         return new DatastoreWrapper(datastore, supplier);
     }
 
+    /**
+     * Shortcut method for calling the constructor.
+     */
+    static DatastoreWrapper wrap(Datastore datastore,
+                                 NamespaceSupplier supplier,
+                                 ParallelExecution execution) {
+        return new DatastoreWrapper(datastore, supplier, execution);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The key is created from a template, which is built once per kind and namespace.
+     * Unlike {@link #keyFactory(Kind)}, no {@code KeyFactory} is created for each key.
+     */
     @Override
     public Key keyFor(Kind kind, RecordId recordId) {
-        KeyFactory keyFactory = keyFactory(kind);
-        Key key = keyFactory.newKey(recordId.value());
+        checkNotNull(kind);
+        Key key = keyTemplates.newKey(kind, namespace(), recordId);
         return key;
     }
 
@@ -118,21 +155,30 @@ public class DatastoreWrapper extends DatastoreMedium implements Logging {
         storage().put(entity);
     }
 
-
+    /**
+     * {@inheritDoc}
+     *
+     * <p>If the entities do not fit into a single Datastore request, either by their number or
+     * by their total size, they are written in several {@linkplain WriteBatches chunks}.
+     * The chunks are sent according to the {@link ParallelExecution} of this
+     * wrapper. In case the chunks are sent in parallel, and some of them fail to be written,
+     * a {@link ParallelExecutionException} is thrown after all the chunks are processed.
+     *
+     * <p>The operation is not atomic: when one of the chunks fails, the others may still
+     * be written.
+     */
     @Override
     public void createOrUpdate(Collection<Entity> entities) {
-        Entity[] array = new Entity[entities.size()];
-        entities.toArray(array);
-        if (array.length <= MAX_ENTITIES_PER_WRITE_REQUEST) {
-            writeSmallBulk(array);
-        } else {
-            writeBulk(array);
-        }
+        checkNotNull(entities);
+        ImmutableList<ImmutableList<Entity>> batches = WriteBatches.ofEntities(entities);
+        execution.forEach(batches, this::writeBatch);
     }
 
     @Override
     public Optional<Entity> read(Key key) {
-        return Optional.ofNullable(storage().get(key));
+        checkNotNull(key);
+        List<@Nullable Entity> found = lookup(ImmutableList.of(key));
+        return Optional.ofNullable(found.get(0));
     }
 
     /**
@@ -156,16 +202,22 @@ public class DatastoreWrapper extends DatastoreMedium implements Logging {
         return lookup(ImmutableList.copyOf(keys)).iterator();
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>If there are more keys than Datastore looks up in a single request, they are looked up
+     * in pages. The pages are fetched according to the {@link ParallelExecution} of this wrapper.
+     */
     @Override
     public List<@Nullable Entity> lookup(List<Key> keys) {
         checkNotNull(keys);
-        DsReaderLookup lookup = new DsReaderLookup(storage());
+        DsReaderLookup lookup = readerLookup(execution);
         return lookup.find(keys);
     }
 
     @Override
     public <R> DsQueryIterator<R> read(StructuredQuery<R> query) {
-        DsReaderLookup lookup = new DsReaderLookup(storage());
+        DsReaderLookup lookup = readerLookup(ParallelExecution.sequential());
         return lookup.execute(query, namespace());
     }
 
@@ -214,46 +266,55 @@ public class DatastoreWrapper extends DatastoreMedium implements Logging {
     }
 
     /**
-     * Queries the Datastore for all entities matching query, executing queries split in batches.
+     * Reads all the entities matching the passed query, in several independent partitions.
      *
-     * <p>Read is performed from datastore using batches of the specified size, which leads to
-     * multiple queries being executed.
-     *
-     * <p>The resulting {@code Iterator} is evaluated lazily. A call to
-     * {@link Iterator#remove() Iterator.remove()} causes an {@link UnsupportedOperationException}.
+     * <p>The query is {@linkplain #partition(StructuredQuery, int) split} into the ranges of keys.
+     * An iterator is returned per each range. The iterators do not depend on each other, and
+     * may be consumed in parallel, from any threads. Each iterator starts reading upon the first
+     * call to its {@code hasNext()} or {@code next()}, in the namespace of the current Tenant
+     * at the time of this call.
      *
      * @param query
-     *         a {@link Query} to execute upon the Datastore
-     * @param pageSize
-     *         a non-zero number of elements to be returned per a single read from Datastore;
-     *         if {@code null} the page size will be dictated by the Datastore
+     *         the query to read the results of; must have neither filter, nor sorting,
+     *         nor limit, nor cursors
+     * @param partitionCount
+     *         the desired number of partitions; must be positive
      * @param <R>
      *         the type of queried objects
-     * @return results fo the query as a lazily evaluated {@link Iterator}
+     * @return lazily evaluated iterators, one per partition
      * @throws IllegalArgumentException
-     *         if the provided {@linkplain StructuredQuery#getLimit() query includes a limit} or
-     *         the provided {@code batchSize} is 0
+     *         if the query cannot be split, or the {@code partitionCount} is not positive
      */
-    private <R> Iterator<R>
-    readAllPageByPage(StructuredQuery<R> query, @Nullable Integer pageSize) {
-        checkArgument(query.getLimit() == null,
-                      "Cannot limit a number of entities for \"read all\" operation.");
-        checkArgument(pageSize == null || pageSize != 0,
-                      "The size of a single read operation cannot be 0.");
-
-        StructuredQuery<R> limitedQuery = limit(query, pageSize);
-        return stream(new DsQueryPageIterator<>(limitedQuery, this))
-                .flatMap(Streams::stream)
-                .iterator();
+    public <R> ImmutableList<Iterator<R>>
+    readPartitioned(StructuredQuery<R> query, int partitionCount) {
+        ImmutableList<StructuredQuery<R>> partitions = partition(query, partitionCount);
+        Namespace namespace = namespace();
+        DsReaderLookup lookup = readerLookup(ParallelExecution.sequential());
+        ImmutableList<Iterator<R>> result =
+                partitions.stream()
+                          .map(partition -> lazily(() -> lookup.execute(partition, namespace)))
+                          .collect(toImmutableList());
+        return result;
     }
 
-    private static <R> StructuredQuery<R> limit(StructuredQuery<R> query,
-                                                @Nullable Integer batchSize) {
-        return batchSize == null
-               ? query
-               : query.toBuilder()
-                      .setLimit(batchSize)
-                      .build();
+    /**
+     * Returns an iterator, which obtains the passed iterator upon the first use.
+     */
+    private static <R> Iterator<R> lazily(Supplier<? extends Iterator<R>> iterator) {
+        return new AbstractIterator<R>() {
+
+            private @Nullable Iterator<R> delegate;
+
+            @Override
+            protected @Nullable R computeNext() {
+                if (delegate == null) {
+                    delegate = iterator.get();
+                }
+                return delegate.hasNext()
+                       ? delegate.next()
+                       : endOfData();
+            }
+        };
     }
 
     @Override
@@ -264,54 +325,53 @@ public class DatastoreWrapper extends DatastoreMedium implements Logging {
     /**
      * Deletes all existing {@link Entities} of a kind given.
      *
+     * <p>The {@linkplain RecordChunks chunks} of the records of this kind are deleted as well.
+     *
      * @param table
      *         kind (a.k.a. type, table, etc.) of the records to delete
      */
     @VisibleForTesting
     protected void dropTable(Kind table) {
         Namespace namespace = namespace();
-        StructuredQuery<Entity> query =
-                Query.newEntityQueryBuilder()
+        StructuredQuery<Key> query =
+                Query.newKeyQueryBuilder()
                      .setNamespace(namespace.value())
                      .setKind(table.value())
                      .build();
         _trace().log("Deleting all entities of `%s` kind in `%s` namespace.",
                      table, namespace.value());
-        Iterator<Entity> queryResult = read(query);
-        List<Entity> entities = newArrayList(queryResult);
-        deleteEntities(entities);
+        List<Key> keys = newArrayList(read(query));
+        deleteKeys(keys);
+        dropChunks(table);
+    }
+
+    /**
+     * Deletes the {@linkplain RecordChunks chunks} of all the records of the passed kind.
+     *
+     * @param table
+     *         kind of the records, which chunks to delete
+     */
+    @VisibleForTesting
+    protected void dropChunks(Kind table) {
+        List<Key> chunkKeys =
+                stream(read(RecordChunks.allChunksQuery()))
+                       .filter(key -> RecordChunks.isChunkOf(key, table))
+                       .collect(toList());
+        deleteKeys(chunkKeys);
     }
 
     @VisibleForTesting
     protected void deleteEntities(Collection<Entity> entities) {
-        List<Key> keyList =
+        List<Key> keys =
                 entities.stream()
                         .map(BaseEntity::getKey)
                         .collect(toList());
-        Key[] keys = new Key[keyList.size()];
-        keyList.toArray(keys);
-        deleteEntities(keys);
+        deleteKeys(keys);
     }
 
-    private void deleteEntities(Key[] keys) {
-        if (keys.length > MAX_ENTITIES_PER_WRITE_REQUEST) {
-            int start = 0;
-            int end = MAX_ENTITIES_PER_WRITE_REQUEST;
-            while (true) {
-                int length = end - start;
-                if (length <= 0) {
-                    return;
-                }
-                Key[] keysSubarray = new Key[length];
-                System.arraycopy(keys, start, keysSubarray, 0, keysSubarray.length);
-                delete(keysSubarray);
-
-                start = end;
-                end = min(MAX_ENTITIES_PER_WRITE_REQUEST, keys.length - end);
-            }
-        } else {
-            delete(keys);
-        }
+    private void deleteKeys(List<Key> keys) {
+        ImmutableList<ImmutableList<Key>> batches = WriteBatches.ofKeys(keys);
+        execution.forEach(batches, batch -> delete(batch.toArray(new Key[0])));
     }
 
     /**
@@ -322,7 +382,40 @@ public class DatastoreWrapper extends DatastoreMedium implements Logging {
      */
     public final TransactionWrapper newTransaction() {
         Transaction tx = datastore().newTransaction();
-        return new TransactionWrapper(tx, namespaceSupplier());
+        return new TransactionWrapper(tx, this);
+    }
+
+    /**
+     * Starts a new read-only database transaction.
+     *
+     * <p>All the reads in the transaction observe a consistent snapshot of the data. The reads
+     * are strongly consistent, as in a read-write transaction. Unlike the latter, a read-only
+     * transaction takes no locks, so it neither waits for the concurrent writers nor makes
+     * them wait or retry. Committing a read-only transaction only releases it.
+     *
+     * <p>An attempt to commit writes made in a read-only transaction fails.
+     *
+     * @return the new transaction
+     * @see TransactionWrapper
+     */
+    public final TransactionWrapper newReadOnlyTransaction() {
+        TransactionOptions options =
+                TransactionOptions.newBuilder()
+                                  .setReadOnly(TransactionOptions.ReadOnly.getDefaultInstance())
+                                  .build();
+        Transaction tx = datastore().newTransaction(options);
+        return new TransactionWrapper(tx, this);
+    }
+
+    /**
+     * Returns a medium, which reads from Datastore with eventual consistency.
+     *
+     * <p>The lookups and the queries run via the returned medium may return slightly stale
+     * data, but have lower latency than the strongly consistent reads of this wrapper.
+     * All the other operations, such as writes, are delegated to this wrapper.
+     */
+    public final DatastoreMedium withEventualConsistency() {
+        return new EventuallyConsistentMedium(this);
     }
 
     @Override
@@ -342,18 +435,18 @@ public class DatastoreWrapper extends DatastoreMedium implements Logging {
         return (Datastore) storage();
     }
 
-    private void writeBulk(Entity[] entities) {
-        int partsCount = entities.length / MAX_ENTITIES_PER_WRITE_REQUEST + 1;
-        for (int i = 0; i < partsCount; i++) {
-            int partHead = i * MAX_ENTITIES_PER_WRITE_REQUEST;
-            int partTail = min(partHead + MAX_ENTITIES_PER_WRITE_REQUEST, entities.length);
-
-            Entity[] part = Arrays.copyOfRange(entities, partHead, partTail);
-            writeSmallBulk(part);
-        }
+    /**
+     * Returns the way this wrapper sends the independent requests to Datastore.
+     *
+     * <p>The asynchronous operations of this wrapper are run via the same execution.
+     */
+    @Override
+    @Internal
+    public final ParallelExecution execution() {
+        return execution;
     }
 
-    private void writeSmallBulk(Entity[] entities) {
-        storage().put(entities);
+    private void writeBatch(List<Entity> batch) {
+        storage().put(batch.toArray(new Entity[0]));
     }
 }
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.storage.datastore;
+
+import com.google.cloud.datastore.StructuredQuery;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.UnmodifiableIterator;
+import io.spine.server.storage.datastore.tenant.Namespace;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+
+/**
+ * An iterator over pages of query results, which reads the next pages ahead.
+ *
+ * <p>Unlike {@link DsQueryPageIterator}, this iterator does not wait for the consumer to run out
+ * of the current page. The next pages are read in the background, until the specified number of
+ * pages are loaded or being loaded ahead of the consumer. Thus, the consumer processes
+ * the current page while the next ones are on their way.
+ *
+ * <p>The query for the next page requires the cursor after the current one. Therefore, the pages
+ * are requested one after another, and no more than a single request is in flight at a time.
+ * The number of the pages to read ahead bounds the memory taken by the pages not yet handed out.
+ *
+ * <p>The namespace is determined once, when the iterator is created.
+ *
+ * <p>The iteration ends upon an empty page.
+ *
+ * @param <R>
+ *         the type of queried objects
+ */
+final class DsPrefetchingPageIterator<R> extends UnmodifiableIterator<ImmutableList<R>> {
+
+    private final DsReaderLookup lookup;
+    private final Namespace namespace;
+    private final ParallelExecution execution;
+    private final int prefetchPages;
+
+    /**
+     * The pages read ahead of the consumer, in the order of the results.
+     */
+    private final Deque<CompletableFuture<Page<R>>> pages = new ArrayDeque<>();
+
+    /**
+     * The last requested page, which the query for the following one is chained to.
+     *
+     * <p>It is the last of the {@link #pages}, unless it is already handed out.
+     */
+    private CompletableFuture<Page<R>> lastPage;
+
+    private @Nullable Page<R> nextPage;
+    private boolean exhausted;
+
+    /**
+     * Creates a new iterator and starts reading the first pages.
+     *
+     * @param query
+     *         the query with the limit set to the page size
+     * @param lookup
+     *         the lookup to read the pages with
+     * @param namespace
+     *         the namespace to read the pages in
+     * @param execution
+     *         the execution to read the pages in the background with; must not be sequential
+     * @param prefetchPages
+     *         the number of pages to read ahead of the consumer; must be positive
+     */
+    DsPrefetchingPageIterator(StructuredQuery<R> query,
+                              DsReaderLookup lookup,
+                              Namespace namespace,
+                              ParallelExecution execution,
+                              int prefetchPages) {
+        checkNotNull(query);
+        checkArgument(!execution.isSequential(),
+                      "The pages cannot be read ahead in the sequential mode.");
+        checkArgument(prefetchPages > 0,
+                      "The number of pages to prefetch must be positive, but got %s.",
+                      prefetchPages);
+        this.lookup = checkNotNull(lookup);
+        this.namespace = checkNotNull(namespace);
+        this.execution = execution;
+        this.prefetchPages = prefetchPages;
+        this.lastPage = load(query);
+        pages.add(lastPage);
+        prefetch();
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (exhausted) {
+            return false;
+        }
+        if (nextPage == null) {
+            nextPage = join(pages.removeFirst());
+            prefetch();
+        }
+        if (nextPage.isLast()) {
+            exhausted = true;
+            pages.clear();
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public ImmutableList<R> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("The paginated query results Iterator is empty.");
+        }
+        Page<R> result = checkNotNull(nextPage);
+        nextPage = null;
+        return result.entities;
+    }
+
+    /**
+     * Chains the queries for the next pages, until the prefetch depth is reached.
+     *
+     * <p>Each next query is started as soon as the previous page is loaded.
+     */
+    private void prefetch() {
+        while (pages.size() < prefetchPages) {
+            lastPage = lastPage.thenCompose(this::loadFollowing);
+            pages.addLast(lastPage);
+        }
+    }
+
+    private CompletableFuture<Page<R>> loadFollowing(Page<R> page) {
+        if (page.isLast()) {
+            return completedFuture(page);
+        }
+        StructuredQuery<R> query = checkNotNull(page.nextPageQuery);
+        return load(query);
+    }
+
+    private CompletableFuture<Page<R>> load(StructuredQuery<R> query) {
+        return execution.supply(() -> read(query));
+    }
+
+    private Page<R> read(StructuredQuery<R> query) {
+        DsQueryIterator<R> results = lookup.execute(query, namespace);
+        ImmutableList<R> entities = ImmutableList.copyOf(results);
+        if (entities.isEmpty()) {
+            return new Page<>(entities, null);
+        }
+        return new Page<>(entities, results.nextPageQuery());
+    }
+
+    private static <R> Page<R> join(CompletableFuture<Page<R>> page) {
+        try {
+            return page.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * A loaded page of query results.
+     */
+    private static final class Page<R> {
+
+        private final ImmutableList<R> entities;
+        private final @Nullable StructuredQuery<R> nextPageQuery;
+
+        private Page(ImmutableList<R> entities, @Nullable StructuredQuery<R> nextPageQuery) {
+            this.entities = entities;
+            this.nextPageQuery = nextPageQuery;
+        }
+
+        /**
+         * Tells whether this page ends the results.
+         */
+        private boolean isLast() {
+            return entities.isEmpty();
+        }
+    }
+}
@@ -69,10 +69,22 @@ public final class DsQueryIterator<R> extends UnmodifiableIterator<R> implements
     private boolean terminated;
 
     public DsQueryIterator(StructuredQuery<R> query, DatastoreReader datastore) {
+        this(query, checkNotNull(datastore).run(checkNotNull(query)));
+    }
+
+    /**
+     * Creates an iterator over the results of the query, which has already been run.
+     *
+     * @param query
+     *         the query
+     * @param results
+     *         the first page of the query results
+     */
+    DsQueryIterator(StructuredQuery<R> query, QueryResults<R> results) {
         super();
         this.query = checkNotNull(query);
         this.limit = query.getLimit();
-        this.currentPage = checkNotNull(datastore).run(query);
+        this.currentPage = checkNotNull(results);
     }
 
     @Override
@@ -99,6 +111,17 @@ public final class DsQueryIterator<R> extends UnmodifiableIterator<R> implements
         terminated = true;
     }
 
+    /**
+     * Returns the Datastore cursor pointing right after the last result returned by this
+     * iterator.
+     *
+     * <p>A query started at this cursor continues from the next result. The cursor may be
+     * {@linkplain Cursor#toUrlSafe() stored} and used later.
+     */
+    public Cursor cursorAfter() {
+        return currentPage.getCursorAfter();
+    }
+
     /**
      * Creates a query to the next batch of entities.
      *
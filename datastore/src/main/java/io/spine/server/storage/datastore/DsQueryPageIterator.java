@@ -50,12 +50,12 @@ import java.util.NoSuchElementException;
  */
 final class DsQueryPageIterator<R> implements Iterator<DsQueryIterator<R>> {
 
-    private final DatastoreWrapper datastore;
+    private final DatastoreMedium datastore;
 
     private DsQueryIterator<R> currentPage;
     private @Nullable DsQueryIterator<R> nextPage;
 
-    DsQueryPageIterator(StructuredQuery<R> query, DatastoreWrapper datastore) {
+    DsQueryPageIterator(StructuredQuery<R> query, DatastoreMedium datastore) {
         this.datastore = datastore;
         this.currentPage = datastore.read(query);
     }
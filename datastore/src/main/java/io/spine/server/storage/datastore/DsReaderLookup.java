@@ -26,35 +26,81 @@
 
 package io.spine.server.storage.datastore;
 
+import com.google.cloud.datastore.Cursor;
+import com.google.cloud.datastore.Datastore;
 import com.google.cloud.datastore.DatastoreReader;
 import com.google.cloud.datastore.Entity;
+import com.google.cloud.datastore.EntityQuery;
 import com.google.cloud.datastore.Key;
+import com.google.cloud.datastore.QueryResults;
+import com.google.cloud.datastore.ReadOption;
 import com.google.cloud.datastore.StructuredQuery;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.datastore.v1.QueryResultBatch;
 import io.spine.logging.Logging;
+import io.spine.server.storage.datastore.record.RecordChunks;
 import io.spine.server.storage.datastore.tenant.Namespace;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
 
 import static com.google.common.base.Preconditions.checkNotNull;
-import static java.lang.Math.min;
+import static com.google.common.collect.Iterators.limit;
+import static com.google.common.collect.Lists.newArrayList;
 
 /**
  * A low-level Datastore lookup.
  *
  * <p>Uses a given {@link DatastoreReader} to find requested methods.
+ *
+ * <p>By default, the reads are strongly consistent. An
+ * {@linkplain #eventuallyConsistent(Datastore, ParallelExecution) eventually consistent} lookup
+ * passes the matching {@link ReadOption} with each lookup and query.
  */
 final class DsReaderLookup implements Logging {
 
     private static final int MAX_KEYS_PER_READ_REQUEST = 1000;
 
     private final DatastoreReader datastore;
+    private final ParallelExecution execution;
+
+    /**
+     * The options passed with each read.
+     *
+     * <p>Only a {@link Datastore} accepts the read options. Therefore, the options are only
+     * set if the {@link #datastore} is a {@code Datastore}.
+     */
+    private final ReadOption[] options;
 
     DsReaderLookup(DatastoreReader datastore) {
+        this(datastore, ParallelExecution.sequential());
+    }
+
+    DsReaderLookup(DatastoreReader datastore, ParallelExecution execution) {
+        this(datastore, execution, new ReadOption[0]);
+    }
+
+    private DsReaderLookup(DatastoreReader datastore,
+                           ParallelExecution execution,
+                           ReadOption[] options) {
         this.datastore = checkNotNull(datastore);
+        this.execution = checkNotNull(execution);
+        this.options = options;
+    }
+
+    /**
+     * Creates a lookup, which reads the entities with eventual consistency.
+     */
+    static DsReaderLookup eventuallyConsistent(Datastore datastore, ParallelExecution execution) {
+        ReadOption[] options = {ReadOption.eventualConsistency()};
+        return new DsReaderLookup(datastore, execution, options);
     }
 
     <R> DsQueryIterator<R> execute(StructuredQuery<R> query, Namespace namespace) {
@@ -64,7 +110,8 @@ final class DsReaderLookup implements Logging {
         StructuredQuery<R> queryWithNamespace = query.toBuilder()
                                                      .setNamespace(namespace.value())
                                                      .build();
-        DsQueryIterator<R> iterator = new DsQueryIterator<>(queryWithNamespace, datastore);
+        DsQueryIterator<R> iterator = new DsQueryIterator<>(queryWithNamespace,
+                                                            run(queryWithNamespace));
         iterator._trace()
                 .log("Reading the records of `%s` kind in `%s` namespace.",
                      query.getKind(), namespace.value());
@@ -76,13 +123,55 @@ final class DsReaderLookup implements Logging {
      *
      * <p>The order of the resulting list is the same as the order of the keys. For keys which are
      * not in the database, {@code null} values are returned.
+     *
+     * <p>The {@linkplain RecordChunks chunked} records are assembled. The chunks of all such
+     * records are looked up together.
      */
     List<@Nullable Entity> find(Collection<Key> keys) {
         ImmutableList<Key> keysList = ImmutableList.copyOf(keys);
-        List<Entity> entities = keysList.size() <= MAX_KEYS_PER_READ_REQUEST
-                                ? fetch(keysList)
-                                : readBulk(keysList);
-        return entities;
+        List<@Nullable Entity> entities = fetchAll(keysList);
+        return assembleChunked(entities);
+    }
+
+    private List<@Nullable Entity> fetchAll(List<Key> keys) {
+        return keys.size() <= MAX_KEYS_PER_READ_REQUEST
+               ? fetch(keys)
+               : readBulk(keys);
+    }
+
+    private List<@Nullable Entity> assembleChunked(List<@Nullable Entity> entities) {
+        List<Key> chunkKeys = new ArrayList<>();
+        for (@Nullable Entity entity : entities) {
+            if (entity != null && RecordChunks.isChunked(entity)) {
+                chunkKeys.addAll(RecordChunks.chunkKeys(entity));
+            }
+        }
+        if (chunkKeys.isEmpty()) {
+            return entities;
+        }
+        Iterator<@Nullable Entity> chunks = fetchAll(chunkKeys).iterator();
+        List<@Nullable Entity> result = new ArrayList<>(entities.size());
+        for (@Nullable Entity entity : entities) {
+            if (entity != null && RecordChunks.isChunked(entity)) {
+                int chunkCount = RecordChunks.chunkKeys(entity)
+                                             .size();
+                List<@Nullable Entity> ownChunks = newArrayList(limit(chunks, chunkCount));
+                result.add(RecordChunks.assemble(entity, ownChunks));
+            } else {
+                result.add(entity);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Asynchronously reads multiple records by their IDs.
+     *
+     * @see #find(Collection)
+     */
+    CompletableFuture<List<@Nullable Entity>> findAsync(Collection<Key> keys) {
+        ImmutableList<Key> keysList = ImmutableList.copyOf(keys);
+        return execution.supply(() -> find(keysList));
     }
 
     /**
@@ -92,34 +181,142 @@ final class DsReaderLookup implements Logging {
      * single call — 1000 entities per query. To deal with this limitation we read the entities in
      * pagination fashion 1000 entity per page.
      *
+     * <p>The pages are fetched according to the {@link ParallelExecution} of this lookup.
+     * The results of the pages are joined in the order of the keys.
+     *
+     * <p>Datastore may defer some of the keys of a page, if it cannot look them up within
+     * a single call. The Datastore client looks such keys up again while fetching the page,
+     * so each page is complete when its {@code fetch} returns.
+     *
      * @param keys
      *         {@link Key keys} to find the entities for
      * @return ordered sequence of {@link Entity entities}
      */
     private List<Entity> readBulk(List<Key> keys) {
-        int pageCount = keys.size() / MAX_KEYS_PER_READ_REQUEST + 1;
-        _trace().log("Reading a big bulk of records synchronously. The data is read as %d pages.",
-                     pageCount);
-        int lowerBound = 0;
-        int higherBound = MAX_KEYS_PER_READ_REQUEST;
-        int keysLeft = keys.size();
+        List<List<Key>> keyPages = Lists.partition(keys, MAX_KEYS_PER_READ_REQUEST);
+        _trace().log("Reading a big bulk of records. The data is read as %d pages, " +
+                             "up to %d pages at a time.",
+                     keyPages.size(), execution.maxConcurrency());
+        ImmutableList<List<Entity>> pages = execution.map(keyPages, this::fetch);
         List<Entity> result = new ArrayList<>(keys.size());
-        for (int i = 0; i < pageCount; i++) {
-            List<Key> keysPage = keys.subList(lowerBound, higherBound);
-            List<Entity> page = fetch(keysPage);
-            result.addAll(page);
-
-            keysLeft -= keysPage.size();
-            lowerBound = higherBound;
-            higherBound += min(keysLeft, MAX_KEYS_PER_READ_REQUEST);
-        }
-
+        pages.forEach(result::addAll);
         return result;
     }
 
+    /**
+     * Runs the query.
+     *
+     * <p>If the query reads whole entities, the {@linkplain RecordChunks chunked} records
+     * are assembled as the results are iterated.
+     */
+    @SuppressWarnings("unchecked") // The type of results is ensured by the type of the query.
+    private <R> QueryResults<R> run(StructuredQuery<R> query) {
+        QueryResults<R> results = options.length == 0
+                                  ? datastore.run(query)
+                                  : ((Datastore) datastore).run(query, options);
+        if (query instanceof EntityQuery) {
+            return (QueryResults<R>) new AssemblingResults((QueryResults<Entity>) results);
+        }
+        return results;
+    }
+
     private List<Entity> fetch(List<Key> keys) {
+        if (options.length > 0) {
+            return ((Datastore) datastore).fetch(keys, options);
+        }
         Key[] keysArray = new Key[keys.size()];
         keys.toArray(keysArray);
         return datastore.fetch(keysArray);
     }
+
+    /**
+     * Query results, which assemble the {@linkplain RecordChunks chunked} records
+     * as they are iterated.
+     *
+     * <p>The results are read from the query page by page. A page ends after
+     * {@link #MAX_RESULTS_PER_PAGE} results, or once its records have
+     * {@link #MAX_CHUNKS_PER_PAGE} chunks in total, whichever comes first. The chunks of all
+     * the records on the page are looked up together.
+     *
+     * <p>The {@linkplain #getCursorAfter() cursor} points right after the last returned result,
+     * not after the page.
+     */
+    private final class AssemblingResults implements QueryResults<Entity> {
+
+        /**
+         * The maximum number of the query results read ahead to assemble them together.
+         */
+        private static final int MAX_RESULTS_PER_PAGE = 100;
+
+        /**
+         * The maximum number of the chunks looked up for a single page.
+         *
+         * <p>Bounds the memory taken by the assembled records, which are not returned yet.
+         */
+        private static final int MAX_CHUNKS_PER_PAGE = 32;
+
+        private final QueryResults<Entity> delegate;
+        private final Queue<Entity> page = new ArrayDeque<>();
+        private final Queue<Cursor> cursors = new ArrayDeque<>();
+        private @Nullable Cursor cursorAfter;
+
+        private AssemblingResults(QueryResults<Entity> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !page.isEmpty() || delegate.hasNext();
+        }
+
+        @Override
+        public Entity next() {
+            if (page.isEmpty()) {
+                readPage();
+            }
+            cursorAfter = cursors.remove();
+            return page.remove();
+        }
+
+        private void readPage() {
+            List<@Nullable Entity> entities = new ArrayList<>();
+            int chunkCount = 0;
+            do {
+                Entity entity = delegate.next();
+                entities.add(entity);
+                cursors.add(delegate.getCursorAfter());
+                if (RecordChunks.isChunked(entity)) {
+                    chunkCount += RecordChunks.chunkKeys(entity)
+                                              .size();
+                }
+            } while (entities.size() < MAX_RESULTS_PER_PAGE
+                    && chunkCount < MAX_CHUNKS_PER_PAGE
+                    && delegate.hasNext());
+            for (@Nullable Entity entity : assembleChunked(entities)) {
+                page.add(checkNotNull(entity));
+            }
+        }
+
+        @Override
+        public Class<?> getResultClass() {
+            return delegate.getResultClass();
+        }
+
+        @Override
+        public Cursor getCursorAfter() {
+            return cursorAfter != null
+                   ? cursorAfter
+                   : delegate.getCursorAfter();
+        }
+
+        @Override
+        public int getSkippedResults() {
+            return delegate.getSkippedResults();
+        }
+
+        @Override
+        public QueryResultBatch.MoreResultsType getMoreResults() {
+            return delegate.getMoreResults();
+        }
+    }
 }
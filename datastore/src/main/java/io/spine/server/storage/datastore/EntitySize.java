@@ -0,0 +1,141 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.storage.datastore;
+
+import com.google.cloud.datastore.BlobValue;
+import com.google.cloud.datastore.EntityValue;
+import com.google.cloud.datastore.FullEntity;
+import com.google.cloud.datastore.IncompleteKey;
+import com.google.cloud.datastore.Key;
+import com.google.cloud.datastore.KeyValue;
+import com.google.cloud.datastore.ListValue;
+import com.google.cloud.datastore.PathElement;
+import com.google.cloud.datastore.RawValue;
+import com.google.cloud.datastore.StringValue;
+import com.google.cloud.datastore.Value;
+import com.google.common.base.Utf8;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import static com.google.common.base.Strings.nullToEmpty;
+
+/**
+ * Estimates the size of Datastore entities and keys in their serialized form.
+ *
+ * <p>The Datastore client does not expose the serialized form of entities. Therefore, the size
+ * is computed from the entity contents. The estimate is intentionally a bit larger than
+ * the actual size, as it accounts for the field tags and length prefixes generously.
+ */
+final class EntitySize {
+
+    /**
+     * The assumed overhead of a single serialized message or field, such as a property,
+     * a value or a key path element.
+     *
+     * <p>Covers the field tag, the length prefix and the flags like "exclude from indexes".
+     */
+    private static final int FIELD_OVERHEAD = 8;
+
+    /**
+     * The assumed size of a value of fixed size, such as a number, a boolean or a timestamp.
+     */
+    private static final int FIXED_VALUE_SIZE = 16;
+
+    /** Prevents the utility class instantiation. */
+    private EntitySize() {
+    }
+
+    /**
+     * Estimates the serialized size of the passed entity in bytes.
+     */
+    static long of(FullEntity<?> entity) {
+        long size = FIELD_OVERHEAD;
+        IncompleteKey key = entity.getKey();
+        if (key != null) {
+            size += of(key);
+        }
+        for (String name : entity.getNames()) {
+            size += FIELD_OVERHEAD + length(name) + of(entity.getValue(name));
+        }
+        return size;
+    }
+
+    /**
+     * Estimates the serialized size of the passed key in bytes.
+     */
+    static long of(IncompleteKey key) {
+        long size = FIELD_OVERHEAD
+                + length(key.getProjectId())
+                + length(key.getNamespace());
+        for (PathElement ancestor : key.getAncestors()) {
+            size += FIELD_OVERHEAD + length(ancestor.getKind()) + idSize(ancestor.getName());
+        }
+        size += FIELD_OVERHEAD + length(key.getKind());
+        if (key instanceof Key) {
+            size += idSize(((Key) key).getName());
+        }
+        return size;
+    }
+
+    private static long of(Value<?> value) {
+        long size = FIELD_OVERHEAD;
+        switch (value.getType()) {
+            case STRING:
+                return size + length(((StringValue) value).get());
+            case BLOB:
+                return size + ((BlobValue) value).get()
+                                                 .getLength();
+            case KEY:
+                return size + of(((KeyValue) value).get());
+            case ENTITY:
+                return size + of(((EntityValue) value).get());
+            case LIST:
+                for (Value<?> element : ((ListValue) value).get()) {
+                    size += of(element);
+                }
+                return size;
+            case RAW_VALUE:
+                return size + ((RawValue) value).get()
+                                                .getSerializedSize();
+            default:
+                return size + FIXED_VALUE_SIZE;
+        }
+    }
+
+    /**
+     * Returns the size of a path element identifier, which is either a string name or
+     * a numeric ID.
+     */
+    private static long idSize(@Nullable String name) {
+        return name == null
+               ? FIXED_VALUE_SIZE
+               : length(name);
+    }
+
+    private static long length(@Nullable String value) {
+        return Utf8.encodedLength(nullToEmpty(value));
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.storage.datastore;
+
+import com.google.cloud.datastore.Datastore;
+import com.google.cloud.datastore.Entity;
+import com.google.cloud.datastore.Key;
+import com.google.cloud.datastore.KeyFactory;
+import com.google.cloud.datastore.StructuredQuery;
+import com.google.common.collect.ImmutableList;
+import io.spine.server.storage.datastore.record.RecordId;
+import io.spine.server.storage.datastore.tenant.Namespace;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A medium, which reads from Datastore with eventual consistency.
+ *
+ * <p>The lookups and the queries are run with the
+ * {@linkplain com.google.cloud.datastore.ReadOption#eventualConsistency() eventual consistency}
+ * read option. All the other operations are delegated to the {@link DatastoreWrapper}, from which
+ * this medium is {@linkplain DatastoreWrapper#withEventualConsistency() obtained}.
+ */
+final class EventuallyConsistentMedium extends DatastoreMedium {
+
+    private final DatastoreWrapper wrapper;
+    private final Datastore datastore;
+
+    EventuallyConsistentMedium(DatastoreWrapper wrapper) {
+        super(wrapper.datastore(), wrapper.namespaceSupplier());
+        this.wrapper = checkNotNull(wrapper);
+        this.datastore = wrapper.datastore();
+    }
+
+    @Override
+    DsReaderLookup readerLookup(ParallelExecution execution) {
+        return DsReaderLookup.eventuallyConsistent(datastore, execution);
+    }
+
+    @Override
+    public Optional<Entity> read(Key key) {
+        checkNotNull(key);
+        List<@Nullable Entity> found = lookup(ImmutableList.of(key));
+        return Optional.ofNullable(found.get(0));
+    }
+
+    @Override
+    public List<@Nullable Entity> lookup(List<Key> keys) {
+        checkNotNull(keys);
+        DsReaderLookup lookup = readerLookup(execution());
+        return lookup.find(keys);
+    }
+
+    @Override
+    public <R> DsQueryIterator<R> read(StructuredQuery<R> query) {
+        DsReaderLookup lookup = readerLookup(ParallelExecution.sequential());
+        return lookup.execute(query, namespace());
+    }
+
+    @Override
+    public void create(Entity entity) {
+        wrapper.create(entity);
+    }
+
+    @Override
+    public void createOrUpdate(Entity entity) {
+        wrapper.createOrUpdate(entity);
+    }
+
+    @Override
+    public void createOrUpdate(Collection<Entity> entities) {
+        wrapper.createOrUpdate(entities);
+    }
+
+    @Override
+    public void delete(Key... keys) {
+        wrapper.delete(keys);
+    }
+
+    @Override
+    public Key keyFor(Kind kind, RecordId id) {
+        return wrapper.keyFor(kind, id);
+    }
+
+    @Override
+    public KeyFactory keyFactory(Kind kind) {
+        return wrapper.keyFactory(kind);
+    }
+
+    @Override
+    public ParallelExecution execution() {
+        return wrapper.execution();
+    }
+
+    @Override
+    protected Namespace namespace() {
+        return wrapper.namespace();
+    }
+}
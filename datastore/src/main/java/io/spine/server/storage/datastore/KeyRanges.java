@@ -0,0 +1,243 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.storage.datastore;
+
+import com.google.cloud.datastore.Key;
+import com.google.cloud.datastore.PathElement;
+import com.google.cloud.datastore.Query;
+import com.google.cloud.datastore.StructuredQuery;
+import com.google.cloud.datastore.StructuredQuery.CompositeFilter;
+import com.google.cloud.datastore.StructuredQuery.Filter;
+import com.google.cloud.datastore.StructuredQuery.PropertyFilter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.UnsignedBytes;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A utility splitting the scan of a Datastore kind into several ranges of keys.
+ *
+ * <p>The boundaries of the ranges are chosen from a sample of the keys of the kind, taken
+ * in the order of the {@value #SCATTER_PROPERTY} property. Datastore assigns this property
+ * to a random subset of the entities, so that the sample is spread evenly over the key space.
+ *
+ * <p>The ranges are adjacent and do not overlap. Together, they cover the whole key space.
+ */
+final class KeyRanges {
+
+    /**
+     * The name of the special Datastore property, ordering by which returns the entities
+     * in a pseudo-random order.
+     */
+    static final String SCATTER_PROPERTY = "__scatter__";
+
+    /**
+     * The name of the special Datastore property, which refers to the entity key in filters.
+     */
+    private static final String KEY_PROPERTY = "__key__";
+
+    /**
+     * The number of the sampled keys per each of the resulting ranges.
+     *
+     * <p>A larger sample evens out the ranges better.
+     */
+    static final int SAMPLES_PER_RANGE = 32;
+
+    /**
+     * The order of keys, in which Datastore returns the entities.
+     *
+     * <p>The keys are compared by their path elements, one by one. Path elements are compared
+     * by their kind, then by their identifier. Numeric identifiers go before the names.
+     * The names are compared as UTF-8 encoded bytes. The key which path is a prefix of
+     * the path of another key, goes first.
+     */
+    static final Comparator<Key> KEY_ORDER = KeyRanges::compare;
+
+    /**
+     * Prevents the utility class instantiation.
+     */
+    private KeyRanges() {
+    }
+
+    /**
+     * Tells whether the passed query may be split into the ranges of keys.
+     */
+    static boolean canSplit(StructuredQuery<?> query) {
+        return query.getFilter() == null
+                && query.getOrderBy()
+                        .isEmpty()
+                && query.getLimit() == null
+                && query.getOffset() == 0
+                && query.getStartCursor() == null
+                && query.getEndCursor() == null;
+    }
+
+    /**
+     * Creates a keys-only query sampling the keys of the kind, which the passed query reads.
+     *
+     * @param query
+     *         the query to split
+     * @param rangeCount
+     *         the desired number of ranges
+     */
+    static StructuredQuery<Key> sampleQuery(StructuredQuery<?> query, int rangeCount) {
+        checkNotNull(query);
+        checkArgument(rangeCount > 1);
+        StructuredQuery<Key> result =
+                Query.newKeyQueryBuilder()
+                     .setKind(query.getKind())
+                     .setOrderBy(StructuredQuery.OrderBy.asc(SCATTER_PROPERTY))
+                     .setLimit((rangeCount - 1) * SAMPLES_PER_RANGE)
+                     .build();
+        return result;
+    }
+
+    /**
+     * Chooses the boundaries of the ranges from the sampled keys.
+     *
+     * <p>Returns up to {@code rangeCount - 1} boundaries, sorted in the {@linkplain #KEY_ORDER
+     * order of keys}. If there are too few samples, fewer boundaries are returned.
+     *
+     * @param sample
+     *         the sampled keys
+     * @param rangeCount
+     *         the desired number of ranges
+     * @return the sorted boundaries
+     */
+    static ImmutableList<Key> boundaries(List<Key> sample, int rangeCount) {
+        checkNotNull(sample);
+        checkArgument(rangeCount > 0);
+        List<Key> sorted = new ArrayList<>(sample);
+        sorted.sort(KEY_ORDER);
+        ImmutableList.Builder<Key> result = ImmutableList.builder();
+        @Nullable Key previous = null;
+        for (int range = 1; range < rangeCount; range++) {
+            int index = range * sorted.size() / rangeCount;
+            if (index >= sorted.size()) {
+                break;
+            }
+            Key boundary = sorted.get(index);
+            if (previous == null || KEY_ORDER.compare(previous, boundary) < 0) {
+                result.add(boundary);
+                previous = boundary;
+            }
+        }
+        return result.build();
+    }
+
+    /**
+     * Creates a query per each range of keys between the passed boundaries.
+     *
+     * <p>The first range has no lower bound, the last one has no upper bound. Each range
+     * includes its lower bound, and excludes the upper one.
+     *
+     * @param query
+     *         the query to split; must not have a filter
+     * @param boundaries
+     *         the sorted boundaries of the ranges
+     * @param <R>
+     *         the type of queried objects
+     * @return the queries, one per range, in the order of keys
+     */
+    static <R> ImmutableList<StructuredQuery<R>>
+    split(StructuredQuery<R> query, List<Key> boundaries) {
+        checkNotNull(query);
+        checkNotNull(boundaries);
+        if (boundaries.isEmpty()) {
+            return ImmutableList.of(query);
+        }
+        ImmutableList.Builder<StructuredQuery<R>> result = ImmutableList.builder();
+        @Nullable Key lower = null;
+        for (Key upper : boundaries) {
+            result.add(withFilter(query, range(lower, upper)));
+            lower = upper;
+        }
+        result.add(withFilter(query, PropertyFilter.ge(KEY_PROPERTY, lower)));
+        return result.build();
+    }
+
+    private static Filter range(@Nullable Key lower, Key upper) {
+        PropertyFilter below = PropertyFilter.lt(KEY_PROPERTY, upper);
+        if (lower == null) {
+            return below;
+        }
+        return CompositeFilter.and(PropertyFilter.ge(KEY_PROPERTY, lower), below);
+    }
+
+    private static <R> StructuredQuery<R> withFilter(StructuredQuery<R> query, Filter filter) {
+        return query.toBuilder()
+                    .setFilter(filter)
+                    .build();
+    }
+
+    private static int compare(Key left, Key right) {
+        List<PathElement> leftPath = pathOf(left);
+        List<PathElement> rightPath = pathOf(right);
+        int length = Math.min(leftPath.size(), rightPath.size());
+        for (int i = 0; i < length; i++) {
+            int result = compare(leftPath.get(i), rightPath.get(i));
+            if (result != 0) {
+                return result;
+            }
+        }
+        return Integer.compare(leftPath.size(), rightPath.size());
+    }
+
+    private static int compare(PathElement left, PathElement right) {
+        int byKind = compareUtf8(left.getKind(), right.getKind());
+        if (byKind != 0) {
+            return byKind;
+        }
+        if (left.hasId() && right.hasId()) {
+            return Long.compare(left.getId(), right.getId());
+        }
+        if (left.hasId() != right.hasId()) {
+            return left.hasId() ? -1 : 1;
+        }
+        return compareUtf8(left.getName(), right.getName());
+    }
+
+    private static int compareUtf8(String left, String right) {
+        return UnsignedBytes.lexicographicalComparator()
+                            .compare(left.getBytes(UTF_8), right.getBytes(UTF_8));
+    }
+
+    private static List<PathElement> pathOf(Key key) {
+        List<PathElement> result = new ArrayList<>(key.getAncestors());
+        result.add(key.hasId()
+                   ? PathElement.of(key.getKind(), key.getId())
+                   : PathElement.of(key.getKind(), key.getName()));
+        return result;
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package io.spine.server.storage.datastore;
+
+import com.google.cloud.datastore.Datastore;
+import com.google.cloud.datastore.IncompleteKey;
+import com.google.cloud.datastore.Key;
+import com.google.common.base.Objects;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import io.spine.server.storage.datastore.record.RecordId;
+import io.spine.server.storage.datastore.tenant.Namespace;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Creates the Datastore {@link Key}s from the immutable per-kind templates.
+ *
+ * <p>A template is an {@link IncompleteKey} which has the project ID, the namespace, and the kind
+ * already set. It is built once per kind and namespace, and then reused. Creating a key only
+ * attaches the record name to the template.
+ *
+ * <p>The number of the cached templates is bounded, as the number of namespaces
+ * in a multi-tenant application is not.
+ */
+final class KeyTemplates {
+
+    /**
+     * The maximum number of the templates to keep.
+     */
+    private static final long MAX_SIZE = 1_000;
+
+    private final LoadingCache<KindInNamespace, IncompleteKey> templates;
+
+    /**
+     * Creates a new instance of {@code KeyTemplates} for the keys of the passed Datastore.
+     */
+    KeyTemplates(Datastore datastore) {
+        checkNotNull(datastore);
+        this.templates = CacheBuilder.newBuilder()
+                                     .maximumSize(MAX_SIZE)
+                                     .build(new TemplateLoader(datastore));
+    }
+
+    /**
+     * Creates a new key of the given kind in the given namespace.
+     */
+    Key newKey(Kind kind, Namespace namespace, RecordId id) {
+        checkNotNull(id);
+        IncompleteKey template = templates.getUnchecked(new KindInNamespace(kind, namespace));
+        Key result = Key.newBuilder(template, id.value())
+                        .build();
+        return result;
+    }
+
+    /**
+     * Builds the key templates for the given Datastore.
+     */
+    private static final class TemplateLoader extends CacheLoader<KindInNamespace, IncompleteKey> {
+
+        private final Datastore datastore;
+
+        private TemplateLoader(Datastore datastore) {
+            super();
+            this.datastore = datastore;
+        }
+
+        @Override
+        public IncompleteKey load(KindInNamespace key) {
+            IncompleteKey result = datastore.newKeyFactory()
+                                            .setKind(key.kind.value())
+                                            .setNamespace(key.namespace.value())
+                                            .newKey();
+            return result;
+        }
+    }
+
+    /**
+     * A kind of Datastore entities in a particular namespace.
+     */
+    private static final class KindInNamespace {
+
+        private final Kind kind;
+        private final Namespace namespace;
+
+        private KindInNamespace(Kind kind, Namespace namespace) {
+            this.kind = checkNotNull(kind);
+            this.namespace = checkNotNull(namespace);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof KindInNamespace)) {
+                return false;
+            }
+            KindInNamespace other = (KindInNamespace) o;
+            return kind.equals(other.kind) && namespace.equals(other.namespace);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(kind, namespace);
+        }
+    }
+}
@@ -0,0 +1,296 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.storage.datastore;
+
+import com.google.common.collect.ImmutableList;
+import io.spine.annotation.Internal;
+import io.spine.logging.Logging;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static com.google.common.util.concurrent.Uninterruptibles.awaitUninterruptibly;
+import static java.lang.Math.min;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+
+/**
+ * Defines how independent Datastore requests, such as the chunks of a bulk write,
+ * are sent to Datastore.
+ *
+ * <p>By default, the requests are sent {@linkplain #sequential() one after another} in the
+ * caller thread. A parallel execution sends the requests through the given {@link Executor},
+ * keeping no more than the specified number of them in flight at a time.
+ *
+ * <p>When several requests are sent in parallel, the caller thread takes part in sending them,
+ * and is blocked until all of them are completed. Thus, the requests are sent even if all
+ * the threads of the executor are busy. If only one request may be in flight at a time,
+ * the requests are sent one after another by the executor, while the caller thread waits.
+ *
+ * <p>The same executor runs the {@linkplain #supply(Supplier) asynchronous} operations.
+ * The number of such operations running at the same time is limited only by the executor.
+ */
+public final class ParallelExecution implements Logging {
+
+    private static final ParallelExecution sequential = new ParallelExecution(directExecutor(), 1);
+
+    private final Executor executor;
+    private final int maxConcurrency;
+
+    private ParallelExecution(Executor executor, int maxConcurrency) {
+        this.executor = executor;
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    /**
+     * Returns the execution which sends the requests one by one in the caller thread.
+     */
+    public static ParallelExecution sequential() {
+        return sequential;
+    }
+
+    /**
+     * Creates a new execution sending the requests through the passed executor.
+     *
+     * @param executor
+     *         the executor to send the requests
+     * @param maxConcurrency
+     *         the maximum number of requests sent at the same time; must be positive
+     * @return a new instance of {@code ParallelExecution}
+     */
+    public static ParallelExecution using(Executor executor, int maxConcurrency) {
+        checkNotNull(executor);
+        checkArgument(maxConcurrency > 0,
+                      "The maximum number of concurrent requests must be positive, but got %s.",
+                      maxConcurrency);
+        return new ParallelExecution(executor, maxConcurrency);
+    }
+
+    /**
+     * Tells whether the requests are sent one after another in the caller thread.
+     *
+     * <p>Only the {@linkplain #sequential() sequential} execution uses no executor. An execution
+     * {@linkplain #using(Executor, int) using} an executor is not sequential, even if it sends
+     * no more than one request at a time.
+     */
+    public boolean isSequential() {
+        return this == sequential;
+    }
+
+    /**
+     * Returns the maximum number of requests sent at the same time.
+     */
+    public int maxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * Returns an execution sending the requests through the same executor, but keeping
+     * no more than the specified number of them in flight at a time.
+     *
+     * <p>The sequential execution stays sequential. Limiting the execution to a single request
+     * at a time makes it {@linkplain #sequential() sequential}, so that the requests are sent
+     * by the caller thread without waiting for the executor.
+     *
+     * @param maxConcurrency
+     *         the maximum number of requests sent at the same time; must be positive
+     */
+    ParallelExecution limitedTo(int maxConcurrency) {
+        if (isSequential() || maxConcurrency == this.maxConcurrency) {
+            return this;
+        }
+        return maxConcurrency == 1
+               ? sequential
+               : using(executor, maxConcurrency);
+    }
+
+    /**
+     * Performs the passed task for each of the items.
+     *
+     * @throws ParallelExecutionException
+     *         if the execution is parallel, and at least one of the tasks has failed
+     * @see #map(List, Function)
+     */
+    <T> void forEach(List<T> items, Consumer<? super T> task) {
+        checkNotNull(task);
+        map(items, item -> {
+            task.accept(item);
+            return item;
+        });
+    }
+
+    /**
+     * Applies the passed function to each of the items and returns the results in the order
+     * of the items.
+     *
+     * <p>In the sequential mode, an exception thrown by the function is propagated as-is,
+     * and the remaining items are not processed.
+     *
+     * <p>In the parallel mode, a failure of a task does not stop the others. Once all the items
+     * are processed, the failures, if any, are reported together
+     * as a {@link ParallelExecutionException}.
+     *
+     * @param items
+     *         the items to process
+     * @param task
+     *         the function to apply to each item; must not return {@code null}
+     * @param <T>
+     *         the type of items
+     * @param <V>
+     *         the type of results
+     * @return the results in the order of the items
+     * @throws ParallelExecutionException
+     *         if the execution is parallel, and at least one of the tasks has failed
+     */
+    <T, V> ImmutableList<V> map(List<T> items, Function<? super T, ? extends V> task) {
+        checkNotNull(items);
+        checkNotNull(task);
+        if (isSequential()) {
+            ImmutableList.Builder<V> results = ImmutableList.builderWithExpectedSize(items.size());
+            for (T item : items) {
+                results.add(task.apply(item));
+            }
+            return results.build();
+        }
+        return mapConcurrently(items, task);
+    }
+
+    /**
+     * Processes the items by several workers, one of which is the caller thread.
+     *
+     * <p>The workers take the items one by one until none are left. The caller returns as soon
+     * as all the items are processed. If some of the submitted workers do not get a thread
+     * in time, they find no items left, and exit.
+     *
+     * <p>If a single worker is enough, it is run by the executor, and the caller only waits for
+     * it. Only if the executor rejects the worker, the items are processed by the caller.
+     */
+    @SuppressWarnings({
+            "unchecked",        /* The array is filled with `V`-typed results only. */
+            "ErrorNotRethrown"  /* Reported as a part of `ParallelExecutionException`. */
+    })
+    private <T, V> ImmutableList<V>
+    mapConcurrently(List<T> items, Function<? super T, ? extends V> task) {
+        int size = items.size();
+        Object[] results = new Object[size];
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        AtomicInteger nextItem = new AtomicInteger();
+        CountDownLatch processed = new CountDownLatch(size);
+        Runnable worker = () -> {
+            int index;
+            while ((index = nextItem.getAndIncrement()) < size) {
+                try {
+                    results[index] = task.apply(items.get(index));
+                } catch (RuntimeException | Error e) {
+                    failures.add(e);
+                } finally {
+                    processed.countDown();
+                }
+            }
+        };
+        int workerCount = min(maxConcurrency, size);
+        if (workerCount == 1) {
+            if (!submit(worker)) {
+                worker.run();
+            }
+        } else {
+            for (int i = 1; i < workerCount; i++) {
+                submit(worker);
+            }
+            worker.run();
+        }
+        awaitUninterruptibly(processed);
+        if (!failures.isEmpty()) {
+            throw new ParallelExecutionException(ImmutableList.copyOf(failures), size);
+        }
+        return (ImmutableList<V>) ImmutableList.copyOf(results);
+    }
+
+    /**
+     * Submits the worker to the executor.
+     *
+     * <p>If the executor rejects the worker, the items are processed by the other workers.
+     *
+     * @return {@code true} if the worker is accepted by the executor, {@code false} otherwise
+     */
+    private boolean submit(Runnable worker) {
+        try {
+            executor.execute(worker);
+            return true;
+        } catch (RejectedExecutionException e) {
+            _debug().withCause(e)
+                    .log("The executor rejected a worker. Proceeding with fewer workers.");
+            return false;
+        }
+    }
+
+    /**
+     * Runs the passed task asynchronously.
+     *
+     * <p>In the sequential mode, the task is run in the caller thread, and the returned future
+     * is already completed when this method returns.
+     *
+     * @param task
+     *         the task to run
+     * @param <V>
+     *         the type of the task result
+     * @return the future result of the task
+     */
+    @Internal
+    public <V> CompletableFuture<V> supply(Supplier<V> task) {
+        checkNotNull(task);
+        if (isSequential()) {
+            try {
+                return completedFuture(task.get());
+            } catch (RuntimeException e) {
+                return failedFuture(e);
+            }
+        }
+        try {
+            return CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            return failedFuture(e);
+        }
+    }
+
+    private static <V> CompletableFuture<V> failedFuture(Throwable failure) {
+        CompletableFuture<V> result = new CompletableFuture<>();
+        result.completeExceptionally(failure);
+        return result;
+    }
+}
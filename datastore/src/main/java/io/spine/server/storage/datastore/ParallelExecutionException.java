@@ -0,0 +1,77 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.storage.datastore;
+
+import com.google.common.collect.ImmutableList;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.String.format;
+
+/**
+ * Thrown when one or more of the Datastore requests sent
+ * {@linkplain ParallelExecution in parallel} have failed.
+ *
+ * <p>The first failure is set as the cause of this exception. The rest of them are
+ * {@linkplain #getSuppressed() suppressed}.
+ */
+public final class ParallelExecutionException extends RuntimeException {
+
+    private static final long serialVersionUID = 0L;
+
+    /**
+     * Creates a new instance of this exception.
+     *
+     * @param failures
+     *         the failures of the requests; must not be empty
+     * @param requestCount
+     *         the total number of the requests sent
+     */
+    ParallelExecutionException(ImmutableList<Throwable> failures, int requestCount) {
+        super(format("%d of %d concurrent Datastore requests failed.",
+                     failures.size(), requestCount),
+              first(failures));
+        failures.stream()
+                .skip(1)
+                .forEach(this::addSuppressed);
+    }
+
+    private static Throwable first(ImmutableList<Throwable> failures) {
+        checkArgument(!failures.isEmpty());
+        return failures.get(0);
+    }
+
+    /**
+     * Returns the failures of all the failed requests.
+     */
+    public ImmutableList<Throwable> failures() {
+        ImmutableList<Throwable> result = ImmutableList.<Throwable>builder()
+                .add(getCause())
+                .add(getSuppressed())
+                .build();
+        return result;
+    }
+}
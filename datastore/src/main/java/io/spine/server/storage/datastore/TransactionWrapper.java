@@ -26,20 +26,20 @@
 
 package io.spine.server.storage.datastore;
 
-import com.google.cloud.datastore.Datastore;
 import com.google.cloud.datastore.DatastoreException;
 import com.google.cloud.datastore.Entity;
 import com.google.cloud.datastore.Key;
 import com.google.cloud.datastore.KeyFactory;
 import com.google.cloud.datastore.StructuredQuery;
 import com.google.cloud.datastore.Transaction;
+import com.google.common.collect.ImmutableList;
 import io.spine.server.storage.datastore.record.RecordId;
-import io.spine.server.storage.datastore.tenant.NamespaceSupplier;
 
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static java.util.Optional.ofNullable;
 
@@ -48,9 +48,20 @@ import static java.util.Optional.ofNullable;
  */
 public final class TransactionWrapper extends DatastoreMedium implements AutoCloseable {
 
+    private final DatastoreWrapper wrapper;
 
-    TransactionWrapper(Transaction tx, NamespaceSupplier namespaceSupplier) {
-        super(tx, namespaceSupplier);
+    /**
+     * Creates a new instance of {@code TransactionWrapper}.
+     *
+     * @param tx
+     *         the transaction to wrap
+     * @param wrapper
+     *         the wrapper of the Datastore, in which the transaction was started;
+     *         the keys of the records are created by it
+     */
+    TransactionWrapper(Transaction tx, DatastoreWrapper wrapper) {
+        super(tx, wrapper.namespaceSupplier());
+        this.wrapper = wrapper;
     }
 
     /**
@@ -98,14 +109,22 @@ public final class TransactionWrapper extends DatastoreMedium implements AutoClo
     /**
      * Puts the given entities into the Datastore in the transaction.
      *
+     * @throws IllegalArgumentException
+     *         if the entities do not fit into a single Datastore write request
      * @implNote Unlike {@link DatastoreWrapper}, {@code TransactionWrapper} does not provide
-     *         a mechanism for writing large numbers of entities. Only 500 entities can be written
-     *         in a single transaction. Please see
+     *         a mechanism for writing large numbers of entities. All the changes of
+     *         the transaction are sent in a single commit request, so only 500 entities of up to
+     *         9 MiB in total can be written. Please see
      *         the <a href="https://cloud.google.com/datastore/docs/concepts/limits">transaction
      *         limits</a> for more info.
      */
     @Override
     public void createOrUpdate(Collection<Entity> entities) throws DatastoreException {
+        checkNotNull(entities);
+        checkArgument(WriteBatches.fitSingleRequest(entities),
+                      "Cannot write %s entities in a single transaction: they exceed"
+                              + " the limits of a Datastore write request.",
+                      entities.size());
         Entity[] array = new Entity[entities.size()];
         entities.toArray(array);
         storage().put(array);
@@ -118,8 +137,9 @@ public final class TransactionWrapper extends DatastoreMedium implements AutoClo
      */
     @Override
     public Optional<Entity> read(Key key) {
-        Entity entity = storage().get(key);
-        return ofNullable(entity);
+        checkNotNull(key);
+        List<Entity> found = lookup(ImmutableList.of(key));
+        return ofNullable(found.get(0));
     }
 
     /**
@@ -216,8 +236,6 @@ public final class TransactionWrapper extends DatastoreMedium implements AutoClo
     }
 
     private DatastoreWrapper wrapper() {
-        Datastore naked = tx().getDatastore();
-        DatastoreWrapper wrapper = DatastoreWrapper.wrap(naked, namespaceSupplier());
         return wrapper;
     }
 }
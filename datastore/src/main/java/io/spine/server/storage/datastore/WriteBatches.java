@@ -0,0 +1,117 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.storage.datastore;
+
+import com.google.cloud.datastore.Entity;
+import com.google.cloud.datastore.Key;
+import com.google.common.collect.ImmutableList;
+
+import java.util.function.ToLongFunction;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Splits the entities and keys to write into batches, each fitting a single Datastore
+ * write request.
+ *
+ * <p>A batch is limited both by the {@linkplain #MAX_ENTITIES_PER_WRITE_REQUEST number
+ * of entities} and by their {@linkplain #MAX_BYTES_PER_WRITE_REQUEST estimated size}.
+ * The items are packed into batches in their original order; each batch is filled as long as
+ * the next item fits.
+ *
+ * <p>An item which alone exceeds the size limit is put into a batch of its own. Datastore
+ * rejects such an item anyway, but the rest of the items are not affected.
+ *
+ * @see <a href="https://cloud.google.com/datastore/docs/concepts/limits">Datastore limits</a>
+ */
+final class WriteBatches {
+
+    /**
+     * The maximum number of entities written or deleted in a single request.
+     */
+    static final int MAX_ENTITIES_PER_WRITE_REQUEST = 500;
+
+    /**
+     * The maximum estimated size of entities in a single request, in bytes.
+     *
+     * <p>Datastore limits an API request by 10 MiB. The rest is left as a margin for
+     * the request envelope.
+     */
+    static final long MAX_BYTES_PER_WRITE_REQUEST = 9L * 1024 * 1024;
+
+    /** Prevents the utility class instantiation. */
+    private WriteBatches() {
+    }
+
+    /**
+     * Splits the passed entities into batches for writing.
+     */
+    static ImmutableList<ImmutableList<Entity>> ofEntities(Iterable<Entity> entities) {
+        return split(entities, EntitySize::of);
+    }
+
+    /**
+     * Splits the passed keys into batches for deletion.
+     */
+    static ImmutableList<ImmutableList<Key>> ofKeys(Iterable<Key> keys) {
+        return split(keys, EntitySize::of);
+    }
+
+    /**
+     * Tells whether the passed entities fit into a single write request.
+     */
+    static boolean fitSingleRequest(Iterable<Entity> entities) {
+        return ofEntities(entities).size() <= 1;
+    }
+
+    private static <T> ImmutableList<ImmutableList<T>>
+    split(Iterable<T> items, ToLongFunction<? super T> sizeOf) {
+        checkNotNull(items);
+        ImmutableList.Builder<ImmutableList<T>> batches = ImmutableList.builder();
+        ImmutableList.Builder<T> batch = ImmutableList.builder();
+        int batchCount = 0;
+        long batchBytes = 0;
+        for (T item : items) {
+            long itemBytes = sizeOf.applyAsLong(item);
+            boolean full = batchCount == MAX_ENTITIES_PER_WRITE_REQUEST
+                    || batchBytes + itemBytes > MAX_BYTES_PER_WRITE_REQUEST;
+            if (batchCount > 0 && full) {
+                batches.add(batch.build());
+                batch = ImmutableList.builder();
+                batchCount = 0;
+                batchBytes = 0;
+            }
+            batch.add(item);
+            batchCount++;
+            batchBytes += itemBytes;
+        }
+        if (batchCount > 0) {
+            batches.add(batch.build());
+        }
+        return batches.build();
+    }
+}
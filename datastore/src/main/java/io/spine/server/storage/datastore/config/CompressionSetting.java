@@ -0,0 +1,103 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.storage.datastore.config;
+
+import io.spine.annotation.Internal;
+import io.spine.server.storage.datastore.DatastoreStorageFactory;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Defines whether the storage created by the {@link DatastoreStorageFactory} compresses
+ * the serialized records before storing them.
+ *
+ * <p>When enabled, the records which are serialized into at least {@link #minSize()} bytes are
+ * compressed with Deflate. The compressed records carry a header, by which they are told apart
+ * from the uncompressed ones. Therefore, the records stored before the compression was enabled
+ * stay readable, and vice versa.
+ *
+ * <p>This type is internal. Framework users may turn the compression on for a particular storage,
+ * by calling
+ * {@link io.spine.server.storage.datastore.DatastoreStorageFactory.Builder#enableCompression(Class, int)
+ * DatastoreStorageFactory.newBuilder().enableCompression(recordType, minSize)}.
+ */
+@Internal
+public final class CompressionSetting {
+
+    private static final CompressionSetting disabled = new CompressionSetting(false, 0);
+
+    private final boolean enabled;
+    private final int minSize;
+
+    private CompressionSetting(boolean enabled, int minSize) {
+        this.enabled = enabled;
+        this.minSize = minSize;
+    }
+
+    /**
+     * Returns the setting under which the records are stored uncompressed.
+     */
+    public static CompressionSetting disabled() {
+        return disabled;
+    }
+
+    /**
+     * Creates a setting under which the records of the specified size or bigger are compressed.
+     *
+     * @param minSize
+     *         the minimum size of a serialized record to compress, in bytes;
+     *         must not be negative
+     * @return a new setting instance
+     */
+    public static CompressionSetting enabled(int minSize) {
+        checkArgument(minSize >= 0,
+                      "The minimum size of a compressed record must not be negative, but got %s.",
+                      minSize);
+        return new CompressionSetting(true, minSize);
+    }
+
+    /**
+     * Tells whether the compression is enabled.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the minimum size of a serialized record to compress, in bytes.
+     */
+    public int minSize() {
+        return minSize;
+    }
+
+    /**
+     * Tells whether a record serialized into the given number of bytes should be compressed.
+     */
+    public boolean appliesTo(int size) {
+        return enabled && size >= minSize;
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.storage.datastore.config;
+
+import io.spine.annotation.Internal;
+import io.spine.server.storage.datastore.DatastoreStorageFactory;
+
+import java.time.Duration;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Defines whether the storage created by the {@link DatastoreStorageFactory} groups
+ * the concurrent single-record writes into multi-entity requests.
+ *
+ * <p>When the group commit is enabled, a single-record write is held for up to
+ * the {@linkplain #window() time window}, or until the {@linkplain #maxBatchSize() batch
+ * is full}. During this time, concurrent writes to the same storage and namespace join the batch.
+ * Then the whole batch is sent to Datastore in a single request.
+ *
+ * <p>This type is internal. Framework users may turn the group commit on for a particular
+ * storage by calling
+ * {@link io.spine.server.storage.datastore.DatastoreStorageFactory.Builder#enableGroupCommit(Class, Duration, int)
+ * DatastoreStorageFactory.newBuilder().enableGroupCommit(recordType, window, maxBatchSize)}.
+ */
+@Internal
+public final class GroupCommitSetting {
+
+    /**
+     * The maximum number of entities which may be written in a single Datastore request.
+     */
+    private static final int MAX_BATCH_SIZE = 500;
+
+    private static final GroupCommitSetting disabled = new GroupCommitSetting(Duration.ZERO, 1);
+
+    private final Duration window;
+    private final int maxBatchSize;
+
+    private GroupCommitSetting(Duration window, int maxBatchSize) {
+        this.window = window;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Returns the setting with the group commit disabled.
+     *
+     * <p>Each single-record write is sent to Datastore on its own.
+     */
+    public static GroupCommitSetting disabled() {
+        return disabled;
+    }
+
+    /**
+     * Creates a setting with the group commit enabled.
+     *
+     * @param window
+     *         the maximum time to hold a write while waiting for the other writes to join
+     *         the batch; must be positive
+     * @param maxBatchSize
+     *         the number of entities, upon reaching which the batch is sent immediately;
+     *         must be between 2 and 500
+     * @return a new setting instance
+     */
+    public static GroupCommitSetting enabled(Duration window, int maxBatchSize) {
+        checkNotNull(window);
+        checkArgument(!window.isNegative() && !window.isZero(),
+                      "The group commit window must be positive, but got `%s`.", window);
+        checkArgument(maxBatchSize > 1 && maxBatchSize <= MAX_BATCH_SIZE,
+                      "The group commit batch size must be between 2 and %s, but got %s.",
+                      MAX_BATCH_SIZE, maxBatchSize);
+        return new GroupCommitSetting(window, maxBatchSize);
+    }
+
+    /**
+     * Tells whether the group commit is enabled.
+     */
+    public boolean isEnabled() {
+        return maxBatchSize > 1;
+    }
+
+    /**
+     * Returns the maximum time to hold a write while waiting for the other writes
+     * to join the batch.
+     */
+    public Duration window() {
+        return window;
+    }
+
+    /**
+     * Returns the number of entities, upon reaching which the batch is sent immediately.
+     */
+    public int maxBatchSize() {
+        return maxBatchSize;
+    }
+}
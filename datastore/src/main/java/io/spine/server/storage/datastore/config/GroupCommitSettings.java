@@ -0,0 +1,100 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.storage.datastore.config;
+
+import com.google.protobuf.Message;
+import io.spine.annotation.Internal;
+
+import java.util.Optional;
+
+/**
+ * The settings of the group commit for storage implementations available
+ * through the {@linkplain io.spine.server.storage.datastore.DatastoreStorageFactory Datastore
+ * storage factory}.
+ *
+ * <p>This type is internal. The library users may enable the group commit for the stored
+ * records via
+ * {@link io.spine.server.storage.datastore.DatastoreStorageFactory.Builder#enableGroupCommit(Class, java.time.Duration, int)
+ * DatastoreStorageFactory.newBuilder().enableGroupCommit(...)}.
+ */
+@Internal
+public final class GroupCommitSettings
+        extends Settings<GroupCommitSetting, GroupCommitSettings, GroupCommitSettings.Builder> {
+
+    private GroupCommitSettings(Builder builder) {
+        super(builder);
+    }
+
+    /**
+     * Creates a new builder for this container.
+     */
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * Obtains the group commit setting for the storage of the records of the specified type.
+     *
+     * <p>If the group commit was not enabled by the library user, it is
+     * {@linkplain GroupCommitSetting#disabled() disabled}.
+     *
+     * @param recordType
+     *         the type of records
+     * @param <R>
+     *         the type of records, as a bounding generic parameter
+     * @return the group commit setting for the storage
+     */
+    public <R extends Message> GroupCommitSetting find(Class<R> recordType) {
+        Optional<GroupCommitSetting> optional = findValue(recordType);
+        GroupCommitSetting result = optional.orElseGet(GroupCommitSetting::disabled);
+        return result;
+    }
+
+    /**
+     * A builder of {@code GroupCommitSettings}.
+     */
+    public static final class Builder
+            extends Settings.Builder<GroupCommitSetting, GroupCommitSettings, Builder> {
+
+        /**
+         * Prevents this builder from direct instantiation.
+         */
+        private Builder() {
+            super();
+        }
+
+        @Override
+        public final GroupCommitSettings build() {
+            return new GroupCommitSettings(this);
+        }
+
+        @Override
+        Builder self() {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.storage.datastore.config;
+
+import io.spine.annotation.Internal;
+import io.spine.server.storage.datastore.DatastoreStorageFactory;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Defines how many Datastore queries the storage created by the {@link DatastoreStorageFactory}
+ * may run at the same time, when a single record query is split into several of them.
+ *
+ * <p>A record query with an "OR" predicate is run as several Datastore queries. By default,
+ * they are run one after another. With a concurrent setting, they are run in parallel via
+ * the {@linkplain DatastoreStorageFactory.Builder#useExecutor(java.util.concurrent.Executor, int)
+ * executor of the storage factory}.
+ *
+ * <p>This type is internal. Framework users may turn the concurrent queries on for a particular
+ * storage by calling
+ * {@link io.spine.server.storage.datastore.DatastoreStorageFactory.Builder#enableConcurrentQueries(Class, int)
+ * DatastoreStorageFactory.newBuilder().enableConcurrentQueries(recordType, maxConcurrentQueries)}.
+ */
+@Internal
+public final class QueryConcurrency {
+
+    private static final QueryConcurrency sequential = new QueryConcurrency(1);
+
+    private final int maxConcurrentQueries;
+
+    private QueryConcurrency(int maxConcurrentQueries) {
+        this.maxConcurrentQueries = maxConcurrentQueries;
+    }
+
+    /**
+     * Returns the setting under which the queries are run one after another.
+     */
+    public static QueryConcurrency sequential() {
+        return sequential;
+    }
+
+    /**
+     * Creates a setting under which up to the specified number of queries are run
+     * at the same time.
+     *
+     * @param maxConcurrentQueries
+     *         the maximum number of queries run at the same time; must be positive
+     * @return a new setting instance
+     */
+    public static QueryConcurrency upTo(int maxConcurrentQueries) {
+        checkArgument(maxConcurrentQueries > 0,
+                      "The maximum number of concurrent queries must be positive, but got %s.",
+                      maxConcurrentQueries);
+        return new QueryConcurrency(maxConcurrentQueries);
+    }
+
+    /**
+     * Returns the maximum number of queries run at the same time.
+     */
+    public int maxConcurrentQueries() {
+        return maxConcurrentQueries;
+    }
+
+    /**
+     * Tells whether the queries are run one after another.
+     */
+    public boolean isSequential() {
+        return maxConcurrentQueries == 1;
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.storage.datastore.config;
+
+import io.spine.annotation.Internal;
+import io.spine.server.storage.datastore.DatastoreStorageFactory;
+
+/**
+ * Defines the consistency of the non-transactional reads performed by the storage created
+ * by the {@link DatastoreStorageFactory}.
+ *
+ * <p>By default, the lookups and the queries are strongly consistent. An eventually consistent
+ * read may return slightly stale data, but has lower latency, as Datastore does not have to
+ * ensure all the preceding writes are applied.
+ *
+ * <p>The reads run within Datastore transactions are always strongly consistent.
+ *
+ * <p>This type is internal. Framework users may turn the eventually consistent reads on for
+ * a particular storage, by calling
+ * {@link io.spine.server.storage.datastore.DatastoreStorageFactory.Builder#enableEventualConsistency(Class)
+ * DatastoreStorageFactory.newBuilder().enableEventualConsistency(recordType)}.
+ */
+@Internal
+public final class ReadConsistency {
+
+    private static final ReadConsistency strong = new ReadConsistency(false);
+    private static final ReadConsistency eventual = new ReadConsistency(true);
+
+    private final boolean eventualEnabled;
+
+    private ReadConsistency(boolean eventualEnabled) {
+        this.eventualEnabled = eventualEnabled;
+    }
+
+    /**
+     * Returns the setting of strongly consistent reads.
+     */
+    public static ReadConsistency strong() {
+        return strong;
+    }
+
+    /**
+     * Returns the setting of eventually consistent reads.
+     */
+    public static ReadConsistency eventual() {
+        return eventual;
+    }
+
+    /**
+     * Tells whether the reads are eventually consistent.
+     */
+    public boolean isEventual() {
+        return eventualEnabled;
+    }
+}
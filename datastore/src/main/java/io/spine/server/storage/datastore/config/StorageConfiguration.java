@@ -50,6 +50,10 @@ public final class StorageConfiguration<I, R extends Message> {
     private final DsEntitySpec<I, R> recordSpec;
     private final ColumnMapping<Value<?>> columnMapping;
     private final TxSetting txSetting;
+    private final GroupCommitSetting groupCommit;
+    private final QueryConcurrency queryConcurrency;
+    private final ReadConsistency readConsistency;
+    private final CompressionSetting compression;
 
     private StorageConfiguration(Builder<I, R> builder) {
         this.context = builder.context;
@@ -57,6 +61,10 @@ public final class StorageConfiguration<I, R extends Message> {
         this.recordSpec = builder.recordSpec;
         this.columnMapping = builder.columnMapping;
         this.txSetting = builder.txSetting;
+        this.groupCommit = builder.groupCommit;
+        this.queryConcurrency = builder.queryConcurrency;
+        this.readConsistency = builder.readConsistency;
+        this.compression = builder.compression;
     }
 
     /**
@@ -103,6 +111,34 @@ public final class StorageConfiguration<I, R extends Message> {
         return txSetting;
     }
 
+    /**
+     * Returns the group commit setting for the configured storage.
+     */
+    public GroupCommitSetting groupCommit() {
+        return groupCommit;
+    }
+
+    /**
+     * Returns the query concurrency setting for the configured storage.
+     */
+    public QueryConcurrency queryConcurrency() {
+        return queryConcurrency;
+    }
+
+    /**
+     * Returns the read consistency setting for the configured storage.
+     */
+    public ReadConsistency readConsistency() {
+        return readConsistency;
+    }
+
+    /**
+     * Returns the compression setting for the configured storage.
+     */
+    public CompressionSetting compression() {
+        return compression;
+    }
+
     /**
      * Creates a new builder of {@code StorageConfiguration} instances.
      *
@@ -131,6 +167,10 @@ public final class StorageConfiguration<I, R extends Message> {
         private DsEntitySpec<I, R> recordSpec;
         private ColumnMapping<Value<?>> columnMapping;
         private TxSetting txSetting;
+        private GroupCommitSetting groupCommit;
+        private QueryConcurrency queryConcurrency;
+        private ReadConsistency readConsistency;
+        private CompressionSetting compression;
 
         /**
          * Prevents this builder from direct instantiation.
@@ -220,6 +260,74 @@ public final class StorageConfiguration<I, R extends Message> {
             return this;
         }
 
+        /**
+         * Sets the group commit setting for the configured storage.
+         *
+         * <p>This parameter is optional. By default, the group commit is
+         * {@linkplain GroupCommitSetting#disabled() disabled}.
+         *
+         * <p>Overrides the previous value, if set.
+         *
+         * @param groupCommit
+         *         the setting of the group commit
+         * @return this instance of this {@code Builder}, for call chaining
+         */
+        public Builder<I, R> withGroupCommit(GroupCommitSetting groupCommit) {
+            this.groupCommit = checkNotNull(groupCommit);
+            return this;
+        }
+
+        /**
+         * Sets the query concurrency setting for the configured storage.
+         *
+         * <p>This parameter is optional. By default, the queries are run
+         * {@linkplain QueryConcurrency#sequential() sequentially}.
+         *
+         * <p>Overrides the previous value, if set.
+         *
+         * @param queryConcurrency
+         *         the setting of query concurrency
+         * @return this instance of this {@code Builder}, for call chaining
+         */
+        public Builder<I, R> withQueryConcurrency(QueryConcurrency queryConcurrency) {
+            this.queryConcurrency = checkNotNull(queryConcurrency);
+            return this;
+        }
+
+        /**
+         * Sets the read consistency setting for the configured storage.
+         *
+         * <p>This parameter is optional. By default, the reads are
+         * {@linkplain ReadConsistency#strong() strongly consistent}.
+         *
+         * <p>Overrides the previous value, if set.
+         *
+         * @param readConsistency
+         *         the setting of read consistency
+         * @return this instance of this {@code Builder}, for call chaining
+         */
+        public Builder<I, R> withReadConsistency(ReadConsistency readConsistency) {
+            this.readConsistency = checkNotNull(readConsistency);
+            return this;
+        }
+
+        /**
+         * Sets the compression setting for the configured storage.
+         *
+         * <p>This parameter is optional. By default, the compression is
+         * {@linkplain CompressionSetting#disabled() disabled}.
+         *
+         * <p>Overrides the previous value, if set.
+         *
+         * @param compression
+         *         the setting of record compression
+         * @return this instance of this {@code Builder}, for call chaining
+         */
+        public Builder<I, R> withCompression(CompressionSetting compression) {
+            this.compression = checkNotNull(compression);
+            return this;
+        }
+
         /**
          * Builds a new {@code StorageConfiguration} on top of this {@code Builder}.
          *
@@ -238,6 +346,10 @@ public final class StorageConfiguration<I, R extends Message> {
             ensureSet(columnMapping);
 
             configureTxSetting();
+            configureGroupCommit();
+            configureQueryConcurrency();
+            configureReadConsistency();
+            configureCompression();
             return new StorageConfiguration<>(this);
         }
 
@@ -252,5 +364,29 @@ public final class StorageConfiguration<I, R extends Message> {
                 txSetting = TxSetting.disabled();
             }
         }
+
+        private void configureGroupCommit() {
+            if (groupCommit == null) {
+                groupCommit = GroupCommitSetting.disabled();
+            }
+        }
+
+        private void configureQueryConcurrency() {
+            if (queryConcurrency == null) {
+                queryConcurrency = QueryConcurrency.sequential();
+            }
+        }
+
+        private void configureReadConsistency() {
+            if (readConsistency == null) {
+                readConsistency = ReadConsistency.strong();
+            }
+        }
+
+        private void configureCompression() {
+            if (compression == null) {
+                compression = CompressionSetting.disabled();
+            }
+        }
     }
 }
@@ -117,12 +117,14 @@ public final class DsSessionStorage
     /**
      * Obtains the session record for the shard with the given index.
      *
-     * <p>The read operation is executed in a new transaction.
+     * <p>The read operation is executed in a new read-only transaction. It observes
+     * the latest committed state of the record, but does not block the concurrent updates
+     * of the session.
      */
     @Override
     public Optional<ShardSessionRecord> read(ShardIndex index) {
         Key key = keyOf(index);
-        try (TransactionWrapper tx = newTransaction()) {
+        try (TransactionWrapper tx = newReadOnlyTransaction()) {
             Optional<Entity> result = tx.read(key);
             tx.commit();
             return result.map(this::toRecord);
@@ -37,6 +37,8 @@ import io.spine.query.Subject;
 import io.spine.query.SubjectParameter;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Predicate;
 
 import static io.spine.util.Exceptions.newIllegalArgumentException;
@@ -45,13 +47,19 @@ import static io.spine.util.Exceptions.newIllegalArgumentException;
  * Tests if a Datastore Entity matches the parameters defined
  * by the {@linkplain Subject query subject}.
  *
- * @implNote The methods of this type rely upon the provided instance of {@link
- *         FilterAdapter}, therefore cannot be made {@code static}.
+ * <p>The predicate of the query subject is compiled once, upon the creation of this instance.
+ * The expected values of the query parameters are converted to Datastore-native values
+ * in advance. The nested predicates joined by the same logical operator are flattened.
+ * Within each of the resulting groups, the parameter conditions are tested before the nested
+ * groups, and the equality conditions go first. Thus, testing an entity costs about
+ * one property read per condition, until the result is known.
+ *
+ * <p>An entity matches a parameter only if it has the corresponding property, and the value
+ * of the property is not {@code null}.
  */
 final class ColumnPredicate<I, R extends Message> implements Predicate<Entity> {
 
-    private final Subject<I, R> querySubject;
-    private final FilterAdapter adapter;
+    private final Predicate<Entity> compiled;
 
     /**
      * Creates a new predicate instance.
@@ -62,117 +70,160 @@ final class ColumnPredicate<I, R extends Message> implements Predicate<Entity> {
      *         an adapter of values of the query parameters to Datastore-native types
      */
     ColumnPredicate(Subject<I, R> querySubject, FilterAdapter adapter) {
-        this.querySubject = querySubject;
-        this.adapter = adapter;
+        this.compiled = compile(querySubject.predicate(), adapter);
     }
 
     @Override
-    @SuppressWarnings("FallThrough") // defines strategy for default and faulty values.
     public boolean test(@Nullable Entity entity) {
         if (entity == null) {
             return false;
         }
-
-        QueryPredicate<R> root = querySubject.predicate();
-        boolean result = testPredicate(root, entity);
+        boolean result = compiled.test(entity);
         return result;
     }
 
-    private boolean testPredicate(QueryPredicate<R> predicate, Entity entity) {
+    private static <R extends Message> Predicate<Entity>
+    compile(QueryPredicate<R> predicate, FilterAdapter adapter) {
         LogicalOperator operator = predicate.operator();
-        ImmutableList<SubjectParameter<?, ?, ?>> parameters = predicate.allParams();
-        ImmutableList<QueryPredicate<R>> children = predicate.children();
-
-        boolean match;
+        List<Predicate<Entity>> params = new ArrayList<>();
+        List<Predicate<Entity>> groups = new ArrayList<>();
+        collect(predicate, operator, adapter, params, groups);
+        params.addAll(groups);
+        Predicate<Entity>[] conditions = toArray(params);
+        if (conditions.length == 1) {
+            return conditions[0];
+        }
         switch (operator) {
             case AND:
-                match = checkAnd(entity, parameters, children);
-                break;
+                return new AllOf(conditions);
             case OR:
-                match = checkOr(entity, parameters, children);
-                break;
+                return new AnyOf(conditions);
             default:
                 throw newIllegalArgumentException(
                         "Unknown logical operator `%s`.", operator
                 );
         }
-        return !match;
     }
 
-    private boolean checkAnd(Entity entity,
-                             ImmutableList<SubjectParameter<?, ?, ?>> params,
-                             ImmutableList<QueryPredicate<R>> children) {
-        if (checkAndParams(entity, params)) {
-            return false;
+    /**
+     * Collects the conditions of the passed predicate, and of the nested predicates joined
+     * by the same logical operator.
+     *
+     * <p>The equality conditions are placed before the other parameter conditions.
+     * The nested predicates joined by another operator are compiled into separate groups.
+     */
+    private static <R extends Message> void collect(QueryPredicate<R> predicate,
+                                                    LogicalOperator operator,
+                                                    FilterAdapter adapter,
+                                                    List<Predicate<Entity>> params,
+                                                    List<Predicate<Entity>> groups) {
+        ImmutableList<SubjectParameter<?, ?, ?>> parameters = predicate.allParams();
+        for (SubjectParameter<?, ?, ?> parameter : parameters) {
+            ParamCondition condition = new ParamCondition(parameter, adapter);
+            if (condition.isEquality()) {
+                params.add(0, condition);
+            } else {
+                params.add(condition);
+            }
         }
-        return !checkAndChildren(entity, children);
-    }
-
-    private boolean checkAndChildren(Entity entity, ImmutableList<QueryPredicate<R>> children) {
-        for (QueryPredicate<R> child : children) {
-            boolean matches = testPredicate(child, entity);
-            if (!matches) {
-                return true;
+        for (QueryPredicate<R> child : predicate.children()) {
+            if (child.operator() == operator) {
+                collect(child, operator, adapter, params, groups);
+            } else {
+                groups.add(compile(child, adapter));
             }
         }
-        return false;
     }
 
-    private boolean checkAndParams(Entity entity, ImmutableList<SubjectParameter<?, ?, ?>> params) {
-        for (SubjectParameter<?, ?, ?> param : params) {
-            boolean matches = checkParamValue(param, entity);
-            if (!matches) {
-                return true;
-            }
-        }
-        return false;
+    @SuppressWarnings({"unchecked", "rawtypes"})    /* Arrays of generic types. */
+    private static Predicate<Entity>[] toArray(List<Predicate<Entity>> conditions) {
+        return conditions.toArray(new Predicate[0]);
     }
 
-    private boolean checkOr(Entity entity,
-                            ImmutableList<SubjectParameter<?, ?, ?>> params,
-                            ImmutableList<QueryPredicate<R>> children) {
-        if (checkOrParams(entity, params)) {
-            return true;
+    /**
+     * Tests the value of a single entity property against the expected value.
+     */
+    private static final class ParamCondition implements Predicate<Entity> {
+
+        private final String column;
+        private final ComparisonOperator operator;
+        private final Object expected;
+
+        private ParamCondition(SubjectParameter<?, ?, ?> parameter, FilterAdapter adapter) {
+            this.column = parameter.column()
+                                   .name()
+                                   .value();
+            this.operator = parameter.operator();
+            Value<?> typedExpected = adapter.transformValue(parameter);
+            this.expected = typedExpected.get();
         }
-        if (checkOrChildren(entity, children)) {
-            return true;
+
+        private boolean isEquality() {
+            return operator == ComparisonOperator.EQUALS;
         }
-        return params.isEmpty();
-    }
 
-    private boolean checkOrChildren(Entity entity, ImmutableList<QueryPredicate<R>> children) {
-        for (QueryPredicate<R> child : children) {
-            boolean matches = testPredicate(child, entity);
-            if (matches) {
-                return true;
+        @Override
+        public boolean test(Entity entity) {
+            Value<?> typedActual = entity.getProperties()
+                                         .get(column);
+            if (typedActual == null) {
+                return false;
+            }
+            Object actual = typedActual.get();
+            if (actual == null) {
+                return false;
             }
+            boolean result = operator.eval(actual, expected);
+            return result;
         }
-        return false;
     }
 
-    private boolean checkOrParams(Entity entity, ImmutableList<SubjectParameter<?, ?, ?>> params) {
-        for (SubjectParameter<?, ?, ?> param : params) {
-            boolean matches = checkParamValue(param, entity);
-            if (matches) {
-                return true;
+    /**
+     * Matches an entity if all the conditions match it.
+     */
+    private static final class AllOf implements Predicate<Entity> {
+
+        private final Predicate<Entity>[] conditions;
+
+        private AllOf(Predicate<Entity>[] conditions) {
+            this.conditions = conditions;
+        }
+
+        @Override
+        public boolean test(Entity entity) {
+            for (Predicate<Entity> condition : conditions) {
+                if (!condition.test(entity)) {
+                    return false;
+                }
             }
+            return true;
         }
-        return false;
     }
 
-    private boolean checkParamValue(SubjectParameter<?, ?, ?> parameter, Entity entity) {
-        String columnName = parameter.column()
-                                     .name()
-                                     .value();
-        if (!entity.contains(columnName)) {
+    /**
+     * Matches an entity if any of the conditions matches it.
+     *
+     * <p>A group with no conditions matches any entity.
+     */
+    private static final class AnyOf implements Predicate<Entity> {
+
+        private final Predicate<Entity>[] conditions;
+
+        private AnyOf(Predicate<Entity>[] conditions) {
+            this.conditions = conditions;
+        }
+
+        @Override
+        public boolean test(Entity entity) {
+            if (conditions.length == 0) {
+                return true;
+            }
+            for (Predicate<Entity> condition : conditions) {
+                if (condition.test(entity)) {
+                    return true;
+                }
+            }
             return false;
         }
-        Value<?> typedActual = entity.getValue(columnName);
-        Object actual = typedActual.get();
-        Value<?> typedExpected = adapter.transformValue(parameter);
-        Object expected = typedExpected.get();
-        ComparisonOperator operator = parameter.operator();
-        boolean result = operator.eval(actual, expected);
-        return result;
     }
 }
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.storage.datastore.query;
+
+import com.google.cloud.datastore.Entity;
+import com.google.cloud.datastore.Key;
+import com.google.common.base.Predicate;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A filter passing only the first {@code Entity} met per each {@link Key}.
+ *
+ * <p>Used to remove duplicates when joining the results of several Datastore queries.
+ * Unlike {@code Entity.equals()}, only the keys of the entities are hashed and compared,
+ * not their properties. Entities with the same key, returned by the queries of the same
+ * read, represent the same stored record.
+ *
+ * <p>The filter remembers the keys it has met. Therefore, a new instance should be used
+ * for each join. The instances are not thread-safe.
+ */
+final class DistinctByKey implements Predicate<Entity> {
+
+    private final Set<Key> met = new HashSet<>();
+
+    @Override
+    public boolean apply(@Nullable Entity entity) {
+        checkNotNull(entity);
+        return isFirst(entity.getKey());
+    }
+
+    /**
+     * Tells whether the passed key is met for the first time, and remembers it.
+     *
+     * <p>Allows to remove the duplicates when joining the results of several keys-only
+     * Datastore queries.
+     */
+    boolean isFirst(Key key) {
+        checkNotNull(key);
+        return met.add(key);
+    }
+}
@@ -29,30 +29,20 @@ package io.spine.server.storage.datastore.query;
 import com.google.cloud.datastore.StructuredQuery;
 import com.google.cloud.datastore.StructuredQuery.PropertyFilter;
 import com.google.cloud.datastore.Value;
-import com.google.common.collect.ImmutableList;
 import com.google.protobuf.Message;
 import io.spine.client.Filter;
 import io.spine.query.ComparisonOperator;
 import io.spine.query.QueryPredicate;
-import io.spine.query.SubjectParameter;
-import io.spine.server.storage.ColumnMapping;
-import io.spine.server.storage.ColumnTypeMapping;
 
 import java.util.Collection;
-import java.util.List;
 
-import static com.google.cloud.datastore.StructuredQuery.CompositeFilter.and;
 import static com.google.cloud.datastore.StructuredQuery.PropertyFilter.eq;
 import static com.google.cloud.datastore.StructuredQuery.PropertyFilter.ge;
 import static com.google.cloud.datastore.StructuredQuery.PropertyFilter.gt;
 import static com.google.cloud.datastore.StructuredQuery.PropertyFilter.le;
 import static com.google.cloud.datastore.StructuredQuery.PropertyFilter.lt;
 import static com.google.common.base.Preconditions.checkNotNull;
-import static com.google.common.base.Preconditions.checkState;
-import static com.google.common.collect.ImmutableList.toImmutableList;
-import static io.spine.query.LogicalOperator.AND;
 import static java.util.Collections.emptySet;
-import static java.util.stream.Collectors.toList;
 
 /**
  * A utility for working with the Datastore {@linkplain Filter filters}.
@@ -120,82 +110,14 @@ final class DsFilters {
 
     private static <R extends Message> Collection<StructuredQuery.Filter>
     toDsFilters(QueryPredicate<R> predicate, FilterAdapter adapter) {
-        ImmutableList.Builder<StructuredQuery.Filter> result = ImmutableList.builder();
-        QueryPredicate<R> dnf = predicate.toDnf();
-        ColumnMapping<Value<?>> mapping = adapter.columnMapping();
-        if (dnf.operator() == AND) {
-            StructuredQuery.Filter group = handleConjunctiveGroup(dnf, mapping);
-            result.add(group);
-        } else {
-            handleParameters(dnf.allParams(), mapping, result);
-            ImmutableList<QueryPredicate<R>> children = dnf.children();
-            for (QueryPredicate<R> child : children) {
-                StructuredQuery.Filter group = handleConjunctiveGroup(child, mapping);
-                result.add(group);
-            }
-        }
-        return result.build();
-    }
-
-    /**
-     * Converts each of the passed parameter to a distinct {@link StructuredQuery.Filter} according
-     * to the passed column mapping, and appends it to the result builder.
-     */
-    private static void handleParameters(ImmutableList<SubjectParameter<?, ?, ?>> parameters,
-                                         ColumnMapping<Value<?>> mapping,
-                                         ImmutableList.Builder<StructuredQuery.Filter> result) {
-        ImmutableList<PropertyFilter> filters = parameters
-                .stream()
-                .map(param -> createFilter(param, mapping))
-                .collect(toImmutableList());
-        result.addAll(filters);
-    }
-
-    private static <R extends Message> StructuredQuery.Filter
-    handleConjunctiveGroup(QueryPredicate<R> predicate, ColumnMapping<Value<?>> mapping) {
-
-        checkState(predicate.children()
-                            .isEmpty(),
-                   "Children collection must be empty for a conjunctive predicate group.");
-        ImmutableList<SubjectParameter<?, ?, ?>> parameters = predicate.allParams();
-        List<StructuredQuery.Filter> filters =
-                parameters.stream()
-                          .map(param -> createFilter(param, mapping))
-                          .collect(toList());
-
-        checkState(!filters.isEmpty());
-        StructuredQuery.Filter first = filters.get(0);
-        StructuredQuery.Filter[] other = skipFirst(filters);
-        StructuredQuery.Filter group = and(first, other);
-        return group;
+        FilterTemplate template = FilterTemplate.of(predicate);
+        return template.bind(predicate, adapter);
     }
 
     /**
-     * Returns the contents of the passed list as a new array, but does not include
-     * the first element of the list into the result.
+     * Creates a property filter comparing the column with the value by the passed operator.
      */
-    private static StructuredQuery.Filter[] skipFirst(List<StructuredQuery.Filter> filters) {
-        int size = filters.size();
-        List<StructuredQuery.Filter> sublist = filters.subList(1, size);
-        StructuredQuery.Filter[] result = sublist.toArray(new StructuredQuery.Filter[size - 1]);
-        return result;
-    }
-
-    private static PropertyFilter
-    createFilter(SubjectParameter<?, ?, ?> parameter, ColumnMapping<Value<?>> mapping) {
-        checkNotNull(parameter);
-        checkNotNull(mapping);
-        Object paramValue = parameter.value();
-        ColumnTypeMapping<?, ? extends Value<?>> typeMapping = mapping.of(paramValue.getClass());
-        Value<?> value = typeMapping.applyTo(paramValue);
-        String columnName = parameter.column()
-                                     .name()
-                                     .value();
-        PropertyFilter result = asFilter(columnName, parameter.operator(), value);
-        return result;
-    }
-
-    private static PropertyFilter
+    static PropertyFilter
     asFilter(String column, ComparisonOperator operator, Value<?> value) {
         switch (operator) {
             case EQUALS:
@@ -30,8 +30,11 @@ import com.google.protobuf.Message;
 import io.spine.query.RecordQuery;
 import io.spine.query.Subject;
 import io.spine.server.storage.datastore.DatastoreMedium;
+import io.spine.server.storage.datastore.config.QueryConcurrency;
 import io.spine.server.storage.datastore.record.DsEntitySpec;
 
+import static com.google.common.base.Preconditions.checkNotNull;
+
 /**
  * Factory for record lookup methods.
  */
@@ -40,11 +43,16 @@ public final class DsLookup<I, R extends Message> {
     private final DatastoreMedium datastore;
     private final FilterAdapter adapter;
     private final DsEntitySpec<I, R> spec;
+    private final QueryConcurrency concurrency;
 
-    private DsLookup(DatastoreMedium datastore, FilterAdapter adapter, DsEntitySpec<I, R> spec) {
+    private DsLookup(DatastoreMedium datastore,
+                     FilterAdapter adapter,
+                     DsEntitySpec<I, R> spec,
+                     QueryConcurrency concurrency) {
         this.datastore = datastore;
         this.adapter = adapter;
         this.spec = spec;
+        this.concurrency = concurrency;
     }
 
     /**
@@ -65,7 +73,20 @@ public final class DsLookup<I, R extends Message> {
      */
     public static <I, R extends Message> DsLookup<I, R>
     onTopOf(DatastoreMedium datastore, FilterAdapter adapter, DsEntitySpec<I, R> spec) {
-        return new DsLookup<>(datastore, adapter, spec);
+        return new DsLookup<>(datastore, adapter, spec, QueryConcurrency.sequential());
+    }
+
+    /**
+     * Creates a copy of this lookup which runs the Datastore queries, composing a single
+     * record query, according to the passed setting.
+     *
+     * @param concurrency
+     *         the setting of query concurrency
+     * @return a new instance of Datastore lookup
+     */
+    public DsLookup<I, R> withConcurrency(QueryConcurrency concurrency) {
+        checkNotNull(concurrency);
+        return new DsLookup<>(datastore, adapter, spec, concurrency);
     }
 
     /**
@@ -83,6 +104,6 @@ public final class DsLookup<I, R extends Message> {
                     .isEmpty()) {
             return new DsLookupByIds<>(datastore, query, adapter, spec);
         }
-        return new DsLookupByQueries<>(datastore, query, adapter, spec);
+        return new DsLookupByQueries<>(datastore, query, adapter, spec, concurrency);
     }
 }
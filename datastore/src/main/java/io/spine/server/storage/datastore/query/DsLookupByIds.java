@@ -32,19 +32,21 @@ import com.google.common.collect.ImmutableList;
 import com.google.protobuf.FieldMask;
 import com.google.protobuf.Message;
 import io.spine.query.RecordQuery;
+import io.spine.query.SortBy;
 import io.spine.server.storage.datastore.DatastoreMedium;
 import io.spine.server.storage.datastore.record.DsEntitySpec;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.Streams.stream;
-import static io.spine.server.storage.datastore.record.DsEntityComparator.implementing;
 import static io.spine.server.storage.datastore.record.Entities.toMessage;
 import static io.spine.server.storage.datastore.record.FieldMaskApplier.recordMasker;
 
@@ -87,19 +89,49 @@ final class DsLookupByIds<I, R extends Message> extends PreparedQuery<I, R> {
     @Override
     Iterable<R> toRecords(IntermediateResult intermediateResult) {
         List<@Nullable Entity> rawEntities = intermediateResult.entities();
+        Stream<Entity> selected = SortAndLimit.sortAndLimit(matching(rawEntities),
+                                                            sorting(), limit());
+        ImmutableList<R> result = selected.map(toMaskedRecord(mask()))
+                                          .collect(toImmutableList());
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The entities are read by their keys and filtered in memory. However, the records
+     * are not parsed from them.
+     */
+    @Override
+    Iterator<Key> keys() {
+        return keys(ImmutableList.of());
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The entities are read by their keys, filtered and sorted in memory. However,
+     * the records are not parsed from them.
+     */
+    @Override
+    Optional<Iterator<Key>> sortedKeys() {
+        return Optional.of(keys(sorting()));
+    }
+
+    private Iterator<Key> keys(ImmutableList<SortBy<?, R>> sorting) {
+        List<@Nullable Entity> rawEntities = readList(identifiers());
+        Iterator<Key> keys = SortAndLimit.sortAndLimit(matching(rawEntities), sorting, limit())
+                                         .map(Entity::getKey)
+                                         .iterator();
+        return keys;
+    }
+
+    private Stream<Entity> matching(List<@Nullable Entity> rawEntities) {
         Predicate<Entity> predicate = columnPredicate();
-        Stream<@Nullable Entity> stream = rawEntities
+        Stream<Entity> result = rawEntities
                 .stream()
                 .filter(Objects::nonNull)
                 .filter(predicate);
-        if (hasSorting()) {
-            stream = stream.sorted(implementing(sorting()));
-        }
-        Stream<R> recordStream = stream.map(toMaskedRecord(mask()));
-        if (limit() != null && limit() > 0) {
-            recordStream = recordStream.limit(limit());
-        }
-        ImmutableList<R> result = recordStream.collect(toImmutableList());
         return result;
     }
 
@@ -26,31 +26,50 @@
 
 package io.spine.server.storage.datastore.query;
 
+import com.google.cloud.datastore.Cursor;
 import com.google.cloud.datastore.Entity;
+import com.google.cloud.datastore.Key;
+import com.google.cloud.datastore.KeyQuery;
+import com.google.cloud.datastore.Query;
 import com.google.cloud.datastore.StructuredQuery;
 import com.google.cloud.datastore.StructuredQuery.CompositeFilter;
 import com.google.cloud.datastore.StructuredQuery.Filter;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Streams;
+import com.google.common.collect.Iterators;
 import com.google.protobuf.Message;
 import io.spine.query.QueryPredicate;
 import io.spine.query.RecordQuery;
 import io.spine.server.storage.datastore.DatastoreMedium;
 import io.spine.server.storage.datastore.DsQueryIterator;
 import io.spine.server.storage.datastore.Kind;
+import io.spine.server.storage.datastore.config.QueryConcurrency;
 import io.spine.server.storage.datastore.record.DsEntitySpec;
+import io.spine.server.storage.datastore.record.RecordPage;
 import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.spine.server.storage.datastore.record.DsEntityComparator.implementing;
+import static java.util.Objects.requireNonNull;
 
 /**
  * An {@code Entity} lookup using {@linkplain QueryPredicate Spine query predicates}.
  *
+ * <p>If the query is split into several Datastore queries, and it is sorted or limited,
+ * each Datastore query is run with the sorting and the limit of the original query. Their
+ * results are then merged in the sorting order, with the duplicates removed, until the limit
+ * is reached. Thus, no more than the limit of entities is read per each Datastore query.
+ *
+ * <p>The Datastore queries composing a single record query are independent. Depending on
+ * the {@linkplain QueryConcurrency query concurrency} of the storage, they are run either one
+ * after another, or at the same time.
+ *
  * @implNote Due to Datastore restrictions, execution of a single
  *         {@link io.spine.query.Query Query} may result into several Datastore reads.
  *         See {@link DsFilters} for details.
@@ -59,6 +78,11 @@ final class DsLookupByQueries<I, R extends Message> extends PreparedQuery<I, R>
 
     private final DatastoreMedium datastore;
 
+    /**
+     * The maximum number of the Datastore queries run at the same time.
+     */
+    private final int maxConcurrentQueries;
+
     /**
      * An ancestor filter specific to the record layout according to which the queried records
      * are stored.
@@ -87,13 +111,17 @@ final class DsLookupByQueries<I, R extends Message> extends PreparedQuery<I, R>
      *         an adapter of {@code RecordQuery} parameter values to Datastore-native types
      * @param spec
      *         Entity specification of the queried records
+     * @param concurrency
+     *         the setting telling how many Datastore queries may be run at the same time
      */
     DsLookupByQueries(DatastoreMedium datastore,
                       RecordQuery<I, R> query,
                       FilterAdapter columnAdapter,
-                      DsEntitySpec<I, R> spec) {
+                      DsEntitySpec<I, R> spec,
+                      QueryConcurrency concurrency) {
         super(query, columnAdapter, spec);
         this.datastore = datastore;
+        this.maxConcurrentQueries = concurrency.maxConcurrentQueries();
         this.ancestorFilter = ancestorFilter(query, datastore);
     }
 
@@ -117,12 +145,134 @@ final class DsLookupByQueries<I, R extends Message> extends PreparedQuery<I, R>
         return records;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>If the query is run as a single Datastore query, its results are streamed. The same
+     * applies to the sorted or limited queries, which results are
+     * {@linkplain #readAndMerge(List) merged} from several Datastore queries. Otherwise,
+     * the results of several Datastore queries have to be joined in memory, so
+     * {@code Optional.empty()} is returned.
+     */
+    @Override
+    Optional<Iterator<R>> stream() {
+        List<StructuredQuery<Entity>> queries = split(query());
+        Iterator<Entity> entities;
+        if (queries.size() == 1) {
+            StructuredQuery<Entity> adjustedForLayout = adjustForLayout(queries.get(0));
+            entities = datastore.read(adjustedForLayout);
+        } else if (canMerge()) {
+            entities = readAndMerge(queries);
+        } else {
+            return Optional.empty();
+        }
+        ConvertAsIs<R> converter = new ConvertAsIs<>(recordType(), mask());
+        Iterator<R> records = Iterators.transform(entities, converter::convert);
+        return Optional.of(records);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>All the predicates of the query are evaluated by Datastore. So the query is executed
+     * as one or more keys-only Datastore queries. The keys of several queries are concatenated.
+     * As each query keeps the limit of the original query, the number of the resulting keys is
+     * the same as if they were merged in order.
+     */
+    @Override
+    Iterator<Key> keys() {
+        List<StructuredQuery<Key>> keyQueries =
+                split(query()).stream()
+                              .map(this::adjustForLayout)
+                              .map(DsLookupByQueries::keysOnly)
+                              .collect(toImmutableList());
+        if (keyQueries.size() == 1) {
+            return datastore.read(keyQueries.get(0));
+        }
+        List<Iterator<Key>> results =
+                datastore.readConcurrently(keyQueries, maxConcurrentQueries, iterator -> iterator);
+        DistinctByKey met = new DistinctByKey();
+        Iterator<Key> distinct =
+                Iterators.filter(Iterators.concat(results.iterator()), met::isFirst);
+        Integer limit = limit();
+        Iterator<Key> keys = isLimited()
+                             ? Iterators.limit(distinct, requireNonNull(limit))
+                             : distinct;
+        return keys;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The results of several sorted Datastore queries have to be merged in the sorting
+     * order, which requires the entities. In this case, {@code Optional.empty()} is returned.
+     */
+    @Override
+    Optional<Iterator<Key>> sortedKeys() {
+        if (hasSorting() && split(query()).size() > 1) {
+            return Optional.empty();
+        }
+        return Optional.of(keys());
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The page is read by a single Datastore query, started at the cursor encoded in
+     * the page token. The cursor after the last read entity becomes the token of the next page.
+     */
+    @Override
+    Optional<RecordPage<R>> page(int pageSize, @Nullable String pageToken) {
+        List<StructuredQuery<Entity>> queries = split(query());
+        if (queries.size() != 1) {
+            return Optional.empty();
+        }
+        StructuredQuery.Builder<Entity> builder = adjustForLayout(queries.get(0))
+                .toBuilder()
+                .setLimit(pageSize);
+        if (pageToken != null) {
+            builder.setStartCursor(Cursor.fromUrlSafe(pageToken));
+        }
+        DsQueryIterator<Entity> entities = datastore.read(builder.build());
+        ConvertAsIs<R> converter = new ConvertAsIs<>(recordType(), mask());
+        ImmutableList<R> records = ImmutableList.copyOf(
+                Iterators.transform(entities, converter::convert)
+        );
+        String nextPageToken = records.size() < pageSize
+                               ? null
+                               : entities.cursorAfter()
+                                         .toUrlSafe();
+        RecordPage<R> page = RecordPage.of(records, nextPageToken);
+        return Optional.of(page);
+    }
+
+    /**
+     * Creates a keys-only query with the same kind, filter, sorting and limit
+     * as the passed query.
+     */
+    private static StructuredQuery<Key> keysOnly(StructuredQuery<Entity> query) {
+        KeyQuery.Builder builder = Query.newKeyQueryBuilder()
+                                        .setKind(query.getKind())
+                                        .setLimit(query.getLimit());
+        Filter filter = query.getFilter();
+        if (filter != null) {
+            builder.setFilter(filter);
+        }
+        for (StructuredQuery.OrderBy orderBy : query.getOrderBy()) {
+            builder.addOrderBy(orderBy);
+        }
+        return builder.build();
+    }
+
     private ImmutableList<Entity> findByPredicates(RecordQuery<?, R> query) {
         ImmutableList<Entity> results;
         List<StructuredQuery<Entity>> queries = split(query);
         if (queries.size() == 1) {
             results = runSingleQuery(queries.get(0));
             transformer = new ConvertAsIs<>(recordType(), mask());
+        } else if (canMerge()) {
+            results = ImmutableList.copyOf(readAndMerge(queries));
+            transformer = new ConvertAsIs<>(recordType(), mask());
         } else {
             results = readAndJoin(queries);
             transformer = new SortAndLimit<>(recordType(), mask(), sorting(), limit());
@@ -148,7 +298,8 @@ final class DsLookupByQueries<I, R extends Message> extends PreparedQuery<I, R>
     }
 
     private Collection<Filter> toDatastoreFilters(QueryPredicate<R> rootPredicate) {
-        Collection<Filter> dsFilters = DsFilters.fromPredicate(rootPredicate, columnAdapter());
+        Collection<Filter> dsFilters =
+                QueryPlans.filtersFor(recordType(), rootPredicate, columnAdapter());
         return dsFilters;
     }
 
@@ -177,21 +328,71 @@ final class DsLookupByQueries<I, R extends Message> extends PreparedQuery<I, R>
     }
 
     /**
-     * Runs multiple Datastore queries in series.
+     * Tells whether the results of several Datastore queries may be merged as they are read.
+     *
+     * <p>This is the case if the original query is sorted or limited. Datastore sorts
+     * the results of each query by itself, and the limit applies to each of them.
+     */
+    private boolean canMerge() {
+        return hasSorting() || isLimited();
+    }
+
+    private boolean isLimited() {
+        Integer limit = limit();
+        return limit != null && limit > 0;
+    }
+
+    /**
+     * Runs multiple Datastore queries, each keeping the sorting and the limit of the original
+     * query, and merges their results lazily.
+     *
+     * <p>The queries are started concurrently, if allowed. Once the first page of each query
+     * is fetched, the results are merged in the caller thread.
      *
-     * <p>Joins the results of each query into a single {@code ImmutableList}. Duplicate entities
+     * <p>If the query is sorted, the results are merged in the sorting order by picking
+     * the least of the current results of each Datastore query. Otherwise, the results are
+     * concatenated.
+     *
+     * <p>The entities with the keys already met are skipped. The merged results end once
+     * the limit of the original query is reached.
+     */
+    private Iterator<Entity> readAndMerge(List<StructuredQuery<Entity>> queries) {
+        List<StructuredQuery<Entity>> adjusted = queries.stream()
+                                                        .map(this::adjustForLayout)
+                                                        .collect(toImmutableList());
+        List<Iterator<Entity>> results =
+                datastore.readConcurrently(adjusted, maxConcurrentQueries, iterator -> iterator);
+        Iterator<Entity> merged = hasSorting()
+                                  ? Iterators.mergeSorted(results, implementing(sorting()))
+                                  : Iterators.concat(results.iterator());
+        Iterator<Entity> distinct = Iterators.filter(merged, new DistinctByKey());
+        Integer limit = limit();
+        return isLimited()
+               ? Iterators.limit(distinct, requireNonNull(limit))
+               : distinct;
+    }
+
+    /**
+     * Runs multiple Datastore queries, concurrently if allowed.
+     *
+     * <p>Each query is read to the end by the thread running it. Then the results of each query
+     * are joined into a single {@code ImmutableList}. Entities with the keys already met
      * are filtered out.
      *
      * <p>Each query is run without the {@code limit} set.
      */
     private ImmutableList<Entity> readAndJoin(Collection<StructuredQuery<Entity>> queries) {
-        ImmutableList<Entity> entities =
+        List<StructuredQuery<Entity>> adjusted =
                 queries.stream()
                        .map(DsLookupByQueries::clearLimit)
                        .map(this::adjustForLayout)
-                       .map(datastore::read)
-                       .flatMap(Streams::stream)
-                       .distinct()
+                       .collect(toImmutableList());
+        ImmutableList<ImmutableList<Entity>> results =
+                datastore.readConcurrently(adjusted, maxConcurrentQueries, ImmutableList::copyOf);
+        ImmutableList<Entity> entities =
+                results.stream()
+                       .flatMap(Collection::stream)
+                       .filter(new DistinctByKey())
                        .collect(toImmutableList());
         return entities;
     }
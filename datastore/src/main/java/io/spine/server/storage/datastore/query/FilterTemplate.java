@@ -0,0 +1,299 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.storage.datastore.query;
+
+import com.google.cloud.datastore.StructuredQuery.Filter;
+import com.google.cloud.datastore.StructuredQuery.PropertyFilter;
+import com.google.cloud.datastore.Value;
+import com.google.common.collect.ImmutableList;
+import com.google.protobuf.Message;
+import io.spine.query.ComparisonOperator;
+import io.spine.query.QueryPredicate;
+import io.spine.query.SubjectParameter;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.cloud.datastore.StructuredQuery.CompositeFilter.and;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.spine.query.LogicalOperator.AND;
+
+/**
+ * The Datastore filters of a query predicate in
+ * the {@linkplain DsFilters#fromPredicate(QueryPredicate, FilterAdapter) disjunctive normal form},
+ * with the values of the query parameters left unbound.
+ *
+ * <p>A template keeps the structure of the filters, and for each property filter, its column,
+ * operator and the position of the parameter in the {@linkplain #parametersOf(QueryPredicate)
+ * flattened} predicate. Therefore, a template created for one predicate may be
+ * {@linkplain #bind(QueryPredicate, FilterAdapter) bound} to the values of any other predicate
+ * of the same {@linkplain #shapeOf(QueryPredicate) shape}.
+ *
+ * <p>The parameters of the disjunctive normal form are traced to their positions by identity.
+ * Two equal parameters at different positions of the original predicate are never confused,
+ * as the other predicates of the same shape may have different values at those positions.
+ */
+final class FilterTemplate {
+
+    private final ImmutableList<Group> groups;
+    private final boolean reusable;
+
+    private FilterTemplate(ImmutableList<Group> groups, boolean reusable) {
+        this.groups = groups;
+        this.reusable = reusable;
+    }
+
+    /**
+     * Creates a template of the filters for the passed non-empty predicate.
+     *
+     * <p>The predicate is brought into the disjunctive normal form, which is the costly part
+     * of the translation.
+     */
+    static <R extends Message> FilterTemplate of(QueryPredicate<R> predicate) {
+        checkNotNull(predicate);
+        Positions parameters = new Positions(parametersOf(predicate));
+        QueryPredicate<R> dnf = predicate.toDnf();
+        ImmutableList.Builder<Group> groups = ImmutableList.builder();
+        if (dnf.operator() == AND) {
+            groups.add(conjunctiveGroup(dnf, parameters));
+        } else {
+            for (SubjectParameter<?, ?, ?> parameter : dnf.allParams()) {
+                Slot slot = new Slot(parameter, parameters);
+                groups.add(new Group(ImmutableList.of(slot), false));
+            }
+            for (QueryPredicate<R> child : dnf.children()) {
+                groups.add(conjunctiveGroup(child, parameters));
+            }
+        }
+        ImmutableList<Group> result = groups.build();
+        boolean reusable = result.stream()
+                                 .flatMap(group -> group.slots.stream())
+                                 .allMatch(Slot::isBound);
+        return new FilterTemplate(result, reusable);
+    }
+
+    private static <R extends Message> Group
+    conjunctiveGroup(QueryPredicate<R> predicate, Positions parameters) {
+        checkState(predicate.children()
+                            .isEmpty(),
+                   "Children collection must be empty for a conjunctive predicate group.");
+        ImmutableList<Slot> slots =
+                predicate.allParams()
+                         .stream()
+                         .map(parameter -> new Slot(parameter, parameters))
+                         .collect(toImmutableList());
+        checkState(!slots.isEmpty());
+        return new Group(slots, true);
+    }
+
+    /**
+     * Tells whether this template may be bound to the values of other predicates of the same
+     * shape.
+     *
+     * <p>It is not the case if some of the parameters in the disjunctive normal form could not
+     * be traced to a single position in the original predicate.
+     */
+    boolean isReusable() {
+        return reusable;
+    }
+
+    /**
+     * Creates the Datastore filters from this template and the values of the parameters
+     * of the passed predicate.
+     *
+     * <p>The predicate must be of the same shape as the one this template was created for.
+     */
+    <R extends Message> ImmutableList<Filter>
+    bind(QueryPredicate<R> predicate, FilterAdapter adapter) {
+        checkNotNull(predicate);
+        checkNotNull(adapter);
+        ImmutableList<SubjectParameter<?, ?, ?>> parameters = parametersOf(predicate);
+        List<Value<?>> values = new ArrayList<>(parameters.size());
+        for (SubjectParameter<?, ?, ?> parameter : parameters) {
+            values.add(adapter.transformValue(parameter));
+        }
+        ImmutableList<Filter> result = groups.stream()
+                                             .map(group -> group.bind(values, adapter))
+                                             .collect(toImmutableList());
+        return result;
+    }
+
+    /**
+     * Returns the parameters of the passed predicate and all its descendants, in the order of
+     * a depth-first traversal.
+     */
+    static <R extends Message> ImmutableList<SubjectParameter<?, ?, ?>>
+    parametersOf(QueryPredicate<R> predicate) {
+        ImmutableList.Builder<SubjectParameter<?, ?, ?>> result = ImmutableList.builder();
+        collectParameters(predicate, result);
+        return result.build();
+    }
+
+    private static <R extends Message> void
+    collectParameters(QueryPredicate<R> predicate,
+                      ImmutableList.Builder<SubjectParameter<?, ?, ?>> result) {
+        result.addAll(predicate.allParams());
+        for (QueryPredicate<R> child : predicate.children()) {
+            collectParameters(child, result);
+        }
+    }
+
+    /**
+     * Describes the shape of the passed predicate.
+     *
+     * <p>Two predicates have the same shape if they have the same logical operators, columns
+     * and comparison operators, in the same structure, and the types of their parameter values
+     * are the same. The values of the parameters do not affect the shape.
+     */
+    static <R extends Message> String shapeOf(QueryPredicate<R> predicate) {
+        StringBuilder result = new StringBuilder();
+        appendShape(predicate, result);
+        return result.toString();
+    }
+
+    private static <R extends Message> void
+    appendShape(QueryPredicate<R> predicate, StringBuilder result) {
+        result.append(predicate.operator())
+              .append('(');
+        for (SubjectParameter<?, ?, ?> parameter : predicate.allParams()) {
+            result.append(columnOf(parameter))
+                  .append(' ')
+                  .append(parameter.operator())
+                  .append(' ')
+                  .append(parameter.value()
+                                   .getClass()
+                                   .getName())
+                  .append(';');
+        }
+        for (QueryPredicate<R> child : predicate.children()) {
+            appendShape(child, result);
+        }
+        result.append(')');
+    }
+
+    private static String columnOf(SubjectParameter<?, ?, ?> parameter) {
+        return parameter.column()
+                        .name()
+                        .value();
+    }
+
+    /**
+     * The positions of the parameters in the flattened original predicate.
+     *
+     * <p>The parameters are compared by identity. If the same parameter instance occurs
+     * in the original predicate more than once, its position is ambiguous, and it is
+     * not bound to any of them.
+     */
+    private static final class Positions {
+
+        private final Map<SubjectParameter<?, ?, ?>, Integer> positions = new IdentityHashMap<>();
+
+        private Positions(ImmutableList<SubjectParameter<?, ?, ?>> parameters) {
+            for (int i = 0; i < parameters.size(); i++) {
+                SubjectParameter<?, ?, ?> parameter = parameters.get(i);
+                Integer previous = positions.put(parameter, i);
+                if (previous != null) {
+                    positions.put(parameter, Slot.UNBOUND);
+                }
+            }
+        }
+
+        /**
+         * Returns the position of the passed parameter, or {@link Slot#UNBOUND} if it
+         * is unknown or ambiguous.
+         */
+        private int of(SubjectParameter<?, ?, ?> parameter) {
+            return positions.getOrDefault(parameter, Slot.UNBOUND);
+        }
+    }
+
+    /**
+     * A single filter, or a conjunction of filters.
+     */
+    private static final class Group {
+
+        private final ImmutableList<Slot> slots;
+        private final boolean conjunction;
+
+        private Group(ImmutableList<Slot> slots, boolean conjunction) {
+            this.slots = slots;
+            this.conjunction = conjunction;
+        }
+
+        private Filter bind(List<Value<?>> values, FilterAdapter adapter) {
+            PropertyFilter first = slots.get(0)
+                                        .bind(values, adapter);
+            if (!conjunction) {
+                return first;
+            }
+            Filter[] other = new Filter[slots.size() - 1];
+            for (int i = 1; i < slots.size(); i++) {
+                other[i - 1] = slots.get(i)
+                                    .bind(values, adapter);
+            }
+            return and(first, other);
+        }
+    }
+
+    /**
+     * A property filter with the value to bind.
+     *
+     * <p>If the position of the parameter in the original predicate is not known,
+     * the slot keeps the parameter itself.
+     */
+    private static final class Slot {
+
+        private static final int UNBOUND = -1;
+
+        private final String column;
+        private final ComparisonOperator operator;
+        private final int index;
+        private final SubjectParameter<?, ?, ?> parameter;
+
+        private Slot(SubjectParameter<?, ?, ?> parameter, Positions parameters) {
+            this.column = columnOf(parameter);
+            this.operator = parameter.operator();
+            this.index = parameters.of(parameter);
+            this.parameter = parameter;
+        }
+
+        private boolean isBound() {
+            return index != UNBOUND;
+        }
+
+        private PropertyFilter bind(List<Value<?>> values, FilterAdapter adapter) {
+            Value<?> value = isBound()
+                             ? values.get(index)
+                             : adapter.transformValue(parameter);
+            return DsFilters.asFilter(column, operator, value);
+        }
+    }
+}
@@ -26,8 +26,10 @@
 
 package io.spine.server.storage.datastore.query;
 
+import com.google.cloud.datastore.Key;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterators;
 import com.google.protobuf.FieldMask;
 import com.google.protobuf.Message;
 import io.spine.annotation.Internal;
@@ -35,9 +37,16 @@ import io.spine.query.QueryPredicate;
 import io.spine.query.RecordQuery;
 import io.spine.query.SortBy;
 import io.spine.server.storage.datastore.record.DsEntitySpec;
+import io.spine.server.storage.datastore.record.RecordPage;
 import io.spine.type.TypeUrl;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+import java.util.Iterator;
+import java.util.Optional;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.spine.util.Exceptions.newIllegalArgumentException;
+
 /**
  * A {@link RecordQuery} prepared for optimal execution in terms of Datastore
  * {@link com.google.cloud.datastore.Query Query} language.
@@ -82,6 +91,129 @@ public abstract class PreparedQuery<I, R extends Message> {
         return result;
     }
 
+    /**
+     * Executes the query and returns an iterator over the read result.
+     *
+     * <p>Unlike {@link #execute()}, the results are read from Datastore and converted into
+     * records as the iterator is traversed, if the query allows that. Thus, only the current
+     * page of Datastore results and the current record are held in memory. The queries which
+     * require the in-memory post-processing of the whole result, such as sorting the results
+     * of several Datastore queries, are executed {@linkplain #execute() as usual}.
+     *
+     * <p>As the results are read while being iterated, the returned iterator should not be
+     * used outside the scope of a Datastore transaction, if the query was run in one.
+     */
+    public final Iterator<R> executeLazily() {
+        Optional<Iterator<R>> streamed = stream();
+        Iterator<R> result = streamed.orElseGet(() -> execute().iterator());
+        return result;
+    }
+
+    /**
+     * Executes the query so that the results are read and converted lazily,
+     * as they are iterated.
+     *
+     * <p>Returns {@code Optional.empty()} if the query cannot be executed this way.
+     * By default, no queries are executed lazily.
+     */
+    Optional<Iterator<R>> stream() {
+        return Optional.empty();
+    }
+
+    /**
+     * Executes the query as a keys-only Datastore query, if the whole query may be evaluated
+     * by Datastore.
+     *
+     * <p>Only the keys of the matching entities are read. Neither the serialized records
+     * are transferred, nor are they parsed. The keys are read lazily, as the returned iterator
+     * is traversed.
+     *
+     * <p>Returns {@code Optional.empty()} if some part of the query has to be evaluated
+     * in memory, using the entities.
+     */
+    public final Optional<Iterator<Key>> executeForKeys() {
+        return sortedKeys();
+    }
+
+    /**
+     * Executes the query and returns a page of the read result.
+     *
+     * <p>Up to {@code pageSize} records are read, starting right after the records returned
+     * on the page, to which the passed token refers. The returned page has the token to read
+     * the next one.
+     *
+     * <p>Only the queries run as a single Datastore query may be read page by page. Those are
+     * the queries without identifiers and without "OR" predicates. The query must not be
+     * limited.
+     *
+     * @param pageSize
+     *         the maximum number of records on the page; must be positive
+     * @param pageToken
+     *         the token of the previous page, or {@code null} to read the first page
+     * @return the page of records
+     * @throws IllegalArgumentException
+     *         if the query cannot be read page by page, or the page size is not positive
+     */
+    public final RecordPage<R> executePage(int pageSize, @Nullable String pageToken) {
+        checkArgument(pageSize > 0, "The page size must be positive, but got %s.", pageSize);
+        Integer limit = limit();
+        checkArgument(limit == null || limit == 0,
+                      "A limited query cannot be read page by page.");
+        Optional<RecordPage<R>> page = page(pageSize, pageToken);
+        return page.orElseThrow(() -> newIllegalArgumentException(
+                "The query cannot be read page by page, as it is not run " +
+                        "as a single Datastore query."));
+    }
+
+    /**
+     * Reads a page of the query results.
+     *
+     * <p>Returns {@code Optional.empty()} if the query cannot be read this way.
+     * By default, no queries are read page by page.
+     */
+    Optional<RecordPage<R>> page(int pageSize, @Nullable String pageToken) {
+        return Optional.empty();
+    }
+
+    /**
+     * Counts the records matching the query.
+     *
+     * <p>The limit of the query is taken into account. The record data is never parsed.
+     * Where possible, only the keys of the matching entities are read.
+     */
+    public final long count() {
+        long result = Iterators.size(keys());
+        return result;
+    }
+
+    /**
+     * Tells whether any record matches the query.
+     *
+     * <p>Stops reading as soon as the first matching entity is found. The record data is never
+     * parsed. Where possible, only the keys of the matching entities are read.
+     */
+    public final boolean exists() {
+        boolean result = keys().hasNext();
+        return result;
+    }
+
+    /**
+     * Executes the query so that only the keys of the matching entities are obtained,
+     * in any order.
+     *
+     * <p>The limit of the query is respected.
+     */
+    abstract Iterator<Key> keys();
+
+    /**
+     * Executes the query so that only the keys of the matching entities are obtained,
+     * following the sorting of the query.
+     *
+     * <p>Returns {@code Optional.empty()} if the keys cannot be sorted without reading
+     * the entities.
+     */
+    abstract Optional<Iterator<Key>> sortedKeys();
+
     /**
      * Queries Datastore for the {@code RecordQuery} part which may be processed by Datastore means.
      *
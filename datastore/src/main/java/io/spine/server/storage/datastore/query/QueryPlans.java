@@ -0,0 +1,111 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.storage.datastore.query;
+
+import com.google.cloud.datastore.StructuredQuery.Filter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.protobuf.Message;
+import io.spine.annotation.Internal;
+import io.spine.query.QueryPredicate;
+import io.spine.type.TypeUrl;
+
+import java.util.Collection;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A cache of the {@linkplain FilterTemplate templates} of Datastore filters, by the type
+ * of queried records and the {@linkplain FilterTemplate#shapeOf(QueryPredicate) shape}
+ * of the query predicate.
+ *
+ * <p>Translating a query predicate into Datastore filters requires bringing it into
+ * the disjunctive normal form. The queries run by an application usually have a small number
+ * of shapes, while their parameter values vary. So the translation is done once per shape,
+ * and only the parameter values are converted for each query.
+ *
+ * <p>The number of the cached shapes is limited. The least recently used ones are evicted
+ * first.
+ */
+@Internal
+public final class QueryPlans {
+
+    /**
+     * The maximum number of the cached query shapes.
+     */
+    private static final int MAX_SHAPES = 1_000;
+
+    private static final Cache<String, FilterTemplate> templates =
+            CacheBuilder.newBuilder()
+                        .maximumSize(MAX_SHAPES)
+                        .build();
+
+    /**
+     * Prevents the utility class instantiation.
+     */
+    private QueryPlans() {
+    }
+
+    /**
+     * Returns the approximate number of the distinct query shapes currently cached.
+     */
+    public static long shapeCount() {
+        return templates.size();
+    }
+
+    /**
+     * Converts the passed predicate into the Datastore filters, reusing the template
+     * cached for the predicates of the same shape.
+     *
+     * @param recordType
+     *         the type of queried records
+     * @param predicate
+     *         the predicate to convert
+     * @param adapter
+     *         an adapter performing the required type conversions
+     * @return the same filters as {@link DsFilters#fromPredicate(QueryPredicate, FilterAdapter)}
+     *         returns for the predicate
+     */
+    static <R extends Message> Collection<Filter>
+    filtersFor(TypeUrl recordType, QueryPredicate<R> predicate, FilterAdapter adapter) {
+        checkNotNull(recordType);
+        checkNotNull(predicate);
+        checkNotNull(adapter);
+        if (predicate.isEmpty()) {
+            return DsFilters.fromPredicate(predicate, adapter);
+        }
+        String key = recordType.value() + ':' + FilterTemplate.shapeOf(predicate);
+        FilterTemplate template = templates.getIfPresent(key);
+        if (template == null) {
+            template = FilterTemplate.of(predicate);
+            if (template.isReusable()) {
+                templates.put(key, template);
+            }
+        }
+        return template.bind(predicate, adapter);
+    }
+}
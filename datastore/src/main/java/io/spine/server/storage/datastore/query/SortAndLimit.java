@@ -31,12 +31,14 @@ import com.google.common.collect.ImmutableList;
 import com.google.protobuf.FieldMask;
 import com.google.protobuf.Message;
 import io.spine.query.SortBy;
+import io.spine.server.storage.datastore.record.SortKey;
 import io.spine.type.TypeUrl;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+import java.util.Comparator;
 import java.util.stream.Stream;
 
-import static io.spine.server.storage.datastore.record.DsEntityComparator.implementing;
+import static java.util.Objects.requireNonNull;
 
 /**
  * Sorts and limits the original list of {@code Entity} objects, then converts each of them
@@ -75,15 +77,52 @@ final class SortAndLimit<R extends Message> extends ToRecords<R> {
         this.limit = limit;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>If the entities are both sorted and limited, only the {@linkplain TopK top}
+     * {@code limit} of them are selected and sorted.
+     */
     @Override
     protected Stream<Entity> filter(Stream<Entity> entities) {
-        Stream<Entity> currentStream = entities;
-        if (!sorting.isEmpty()) {
-            currentStream = currentStream.sorted(implementing(sorting));
+        return sortAndLimit(entities, sorting, limit);
+    }
+
+    /**
+     * Sorts and limits the passed entities.
+     *
+     * <p>The values of the sorted columns are {@linkplain SortKey extracted} once per entity.
+     * If the entities are both sorted and limited, the full sort is avoided by selecting
+     * the {@linkplain TopK top} {@code limit} entities.
+     *
+     * @param entities
+     *         the entities to sort and limit
+     * @param sorting
+     *         the directives to use for sorting; may be empty
+     * @param limit
+     *         if set, a maximum number of entities to pass on, in the ascending order of sorting
+     * @param <R>
+     *         the type of the records stored as the entities
+     * @return the sorted and limited entities
+     */
+    static <R extends Message> Stream<Entity>
+    sortAndLimit(Stream<Entity> entities,
+                 ImmutableList<SortBy<?, R>> sorting,
+                 @Nullable Integer limit) {
+        boolean limited = limit != null && limit > UNSET_LIMIT;
+        if (sorting.isEmpty()) {
+            return limited
+                   ? entities.limit(requireNonNull(limit))
+                   : entities;
         }
-        if (limit != null && limit != UNSET_LIMIT) {
-            currentStream = currentStream.limit(limit);
+        Stream<SortKey> keys = entities.map(SortKey.extractor(sorting));
+        if (!limited) {
+            return keys.sorted()
+                       .map(SortKey::entity);
         }
-        return currentStream;
+        ImmutableList<SortKey> top =
+                TopK.least(keys.iterator(), requireNonNull(limit), Comparator.naturalOrder());
+        return top.stream()
+                  .map(SortKey::entity);
     }
 }
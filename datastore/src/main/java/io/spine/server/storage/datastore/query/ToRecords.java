@@ -72,12 +72,19 @@ abstract class ToRecords<R extends Message> implements Function<IntermediateResu
                         .filter(Objects::nonNull);
         stream = filter(stream);
         ImmutableList<R> records =
-                stream.map(this::toRecord)
-                      .map(masker)
+                stream.map(this::convert)
                       .collect(toImmutableList());
         return records;
     }
 
+    /**
+     * Converts a single Datastore {@code Entity} into a record, applying the field mask.
+     */
+    final R convert(Entity entity) {
+        R record = toRecord(entity);
+        return masker.apply(record);
+    }
+
     private R toRecord(Entity e) {
         return Entities.toMessage(e, recordType);
     }
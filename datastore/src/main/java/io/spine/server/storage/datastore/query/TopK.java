@@ -0,0 +1,121 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.storage.datastore.query;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+/**
+ * Selects the least {@code k} items in a given order, without sorting all of them.
+ *
+ * <p>The selected items are kept in a bounded heap. Therefore, the selection takes
+ * {@code O(n log k)} time and {@code O(k)} memory, as opposed to {@code O(n log n)} time
+ * and {@code O(n)} memory of a full sort followed by a limit.
+ *
+ * <p>The selection is stable. Of the items equal in the given order, the ones met earlier
+ * are preferred, and are returned first. Thus, the result is the same as if the items were
+ * sorted with {@link java.util.stream.Stream#sorted(Comparator) Stream.sorted()}, and then
+ * limited.
+ */
+final class TopK {
+
+    /**
+     * Prevents the utility class instantiation.
+     */
+    private TopK() {
+    }
+
+    /**
+     * Returns the least {@code k} of the passed items, in the ascending order.
+     *
+     * @param items
+     *         the items to select from
+     * @param k
+     *         the maximum number of the items to select; must be positive
+     * @param order
+     *         the order of the items
+     * @param <T>
+     *         the type of the items
+     * @return the selected items, in the ascending order
+     */
+    static <T> ImmutableList<T> least(Iterator<T> items, int k, Comparator<? super T> order) {
+        checkNotNull(items);
+        checkNotNull(order);
+        checkArgument(k > 0, "The number of items to select must be positive, but got %s.", k);
+        Comparator<Ranked<T>> ascending = Ranked.comparing(order);
+        PriorityQueue<Ranked<T>> greatestOnTop = new PriorityQueue<>(ascending.reversed());
+        long rank = 0;
+        while (items.hasNext()) {
+            T item = items.next();
+            if (greatestOnTop.size() < k) {
+                greatestOnTop.add(new Ranked<>(item, rank));
+            } else if (order.compare(item, greatestOnTop.element().item) < 0) {
+                greatestOnTop.poll();
+                greatestOnTop.add(new Ranked<>(item, rank));
+            }
+            rank++;
+        }
+        List<Ranked<T>> selected = new ArrayList<>(greatestOnTop);
+        selected.sort(ascending);
+        ImmutableList<T> result = selected.stream()
+                                          .map(ranked -> ranked.item)
+                                          .collect(toImmutableList());
+        return result;
+    }
+
+    /**
+     * An item along with the position at which it was met.
+     */
+    private static final class Ranked<T> {
+
+        private final T item;
+        private final long rank;
+
+        private Ranked(T item, long rank) {
+            this.item = item;
+            this.rank = rank;
+        }
+
+        /**
+         * Returns the comparator ordering the items in the given order, and the equal
+         * items in the order they were met.
+         */
+        private static <T> Comparator<Ranked<T>> comparing(Comparator<? super T> order) {
+            Comparator<Ranked<T>> byItem = (left, right) -> order.compare(left.item, right.item);
+            return byItem.thenComparingLong(ranked -> ranked.rank);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.storage.datastore.record;
+
+import com.google.cloud.datastore.Value;
+import io.spine.server.storage.ColumnMapping;
+import io.spine.server.storage.ColumnTypeMapping;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A column mapping, which resolves the type mapping for each Java type only once.
+ *
+ * <p>The mapping of a column value is looked up by the runtime class of the value. Resolving it
+ * in the {@linkplain io.spine.server.storage.AbstractColumnMapping default implementation} takes
+ * a look-up through the custom and the standard mappings. As the set of the column types of
+ * a storage is small and fixed, the resolved type mappings are cached per class and reused
+ * for all the records written by the storage.
+ */
+final class CachingColumnMapping implements ColumnMapping<Value<?>> {
+
+    private final ColumnMapping<Value<?>> delegate;
+    private final ColumnTypeMapping<?, ? extends Value<?>> nullMapping;
+    private final ConcurrentMap<Class<?>, ColumnTypeMapping<?, ? extends Value<?>>> mappings =
+            new ConcurrentHashMap<>();
+
+    private CachingColumnMapping(ColumnMapping<Value<?>> delegate) {
+        this.delegate = delegate;
+        this.nullMapping = delegate.ofNull();
+    }
+
+    /**
+     * Wraps the passed column mapping, unless it already caches the type mappings.
+     */
+    static ColumnMapping<Value<?>> of(ColumnMapping<Value<?>> mapping) {
+        checkNotNull(mapping);
+        if (mapping instanceof CachingColumnMapping) {
+            return mapping;
+        }
+        return new CachingColumnMapping(mapping);
+    }
+
+    @Override
+    public ColumnTypeMapping<?, ? extends Value<?>> of(Class<?> type) {
+        checkNotNull(type);
+        return mappings.computeIfAbsent(type, delegate::of);
+    }
+
+    @Override
+    public ColumnTypeMapping<?, ? extends Value<?>> ofNull() {
+        return nullMapping;
+    }
+}
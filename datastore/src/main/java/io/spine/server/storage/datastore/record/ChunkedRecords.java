@@ -0,0 +1,97 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.storage.datastore.record;
+
+import com.google.cloud.datastore.Key;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BooleanSupplier;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Strings.nullToEmpty;
+
+/**
+ * Tells whether the records of a storage may be {@linkplain RecordChunks stored in chunks}.
+ *
+ * <p>It takes a query to find the stale chunks of a record. Most of the storages never store
+ * a record big enough to be split. So, before the first such query in a namespace, it is
+ * checked once whether any record of the storage is chunked. If none is, and no record has been
+ * chunked since, the stale chunks are not looked for.
+ *
+ * <p>The chunked records written by other processes after the check are not noticed. If such
+ * a record is then overwritten as a whole, its chunks are left unused. They do not affect
+ * reading the record, and are deleted when the record is chunked again, or when its kind
+ * is dropped.
+ */
+final class ChunkedRecords {
+
+    private final BooleanSupplier anyChunked;
+
+    /**
+     * Tells per namespace whether a chunked record may be stored.
+     */
+    private final ConcurrentMap<String, Boolean> presence = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new instance.
+     *
+     * @param anyChunked
+     *         tells whether any record of the storage is chunked in the current namespace
+     */
+    ChunkedRecords(BooleanSupplier anyChunked) {
+        this.anyChunked = checkNotNull(anyChunked);
+    }
+
+    /**
+     * Tells whether the record with the passed key may have chunks.
+     *
+     * <p>Upon the first call for a namespace, checks whether any record is chunked. The check
+     * is run in the current namespace, which must be the namespace of the key.
+     */
+    boolean mayHaveChunks(Key recordKey) {
+        String namespace = namespaceOf(recordKey);
+        Boolean known = presence.get(namespace);
+        if (known != null) {
+            return known;
+        }
+        boolean found = anyChunked.getAsBoolean();
+        return presence.merge(namespace, found, Boolean::logicalOr);
+    }
+
+    /**
+     * Remembers that the record with the passed key is about to be written in chunks.
+     */
+    void onChunked(Key recordKey) {
+        presence.put(namespaceOf(recordKey), true);
+    }
+
+    private static String namespaceOf(Key key) {
+        checkNotNull(key);
+        return nullToEmpty(key.getNamespace());
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.storage.datastore.record;
+
+import com.google.cloud.datastore.Blob;
+
+import java.nio.ByteBuffer;
+import java.util.Optional;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import static io.spine.util.Exceptions.newIllegalStateException;
+
+/**
+ * Compresses the serialized records, and decompresses them back.
+ *
+ * <p>A compressed record starts with a header, which consists of:
+ * <ol>
+ *     <li>a zero byte, which marks the record as compressed;
+ *     <li>a byte identifying the compression codec;
+ *     <li>four bytes of the size of the uncompressed record.
+ * </ol>
+ *
+ * <p>A serialized Protobuf message never starts with a zero byte, as zero is not a valid field
+ * tag. Therefore, the compressed records are told apart from the uncompressed ones, which are
+ * stored as-is.
+ */
+final class Compression {
+
+    private static final byte COMPRESSED = 0;
+    private static final byte DEFLATE = 1;
+    private static final int HEADER_SIZE = 6;
+    private static final int SIZE_OFFSET = 2;
+
+    /** Prevents the utility class instantiation. */
+    private Compression() {
+    }
+
+    /**
+     * Tells whether the passed stored record is compressed.
+     */
+    static boolean isCompressed(Blob blob) {
+        return blob.getLength() > 0
+                && blob.asReadOnlyByteBuffer()
+                       .get(0) == COMPRESSED;
+    }
+
+    /**
+     * Compresses the passed serialized record.
+     *
+     * <p>Returns {@code Optional.empty()} if the record does not get smaller upon compression.
+     */
+    static Optional<Blob> compress(byte[] bytes) {
+        byte[] output = new byte[bytes.length];
+        if (output.length <= HEADER_SIZE) {
+            return Optional.empty();
+        }
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try {
+            deflater.setInput(bytes);
+            deflater.finish();
+            int compressedSize = deflater.deflate(output, HEADER_SIZE, output.length - HEADER_SIZE);
+            if (!deflater.finished()) {
+                return Optional.empty();
+            }
+            ByteBuffer result = ByteBuffer.wrap(output, 0, HEADER_SIZE + compressedSize);
+            result.put(COMPRESSED)
+                  .put(DEFLATE)
+                  .putInt(bytes.length)
+                  .rewind();
+            return Optional.of(Blob.copyFrom(result));
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Decompresses the passed stored record.
+     *
+     * @throws IllegalStateException
+     *         if the record is compressed with an unknown codec, or is malformed
+     */
+    static byte[] decompress(Blob blob) {
+        ByteBuffer buffer = blob.asReadOnlyByteBuffer();
+        byte codec = buffer.get(1);
+        if (codec != DEFLATE) {
+            throw newIllegalStateException("Unknown compression codec `%d`.", codec);
+        }
+        int size = buffer.getInt(SIZE_OFFSET);
+        byte[] compressed = blob.toByteArray();
+        byte[] result = new byte[size];
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(compressed, HEADER_SIZE, compressed.length - HEADER_SIZE);
+            int inflated = inflater.inflate(result);
+            if (inflated != size) {
+                throw newIllegalStateException(
+                        "Expected %d bytes of a decompressed record, but got %d.", size, inflated);
+            }
+            return result;
+        } catch (DataFormatException e) {
+            throw newIllegalStateException(e, "Unable to decompress a record.");
+        } finally {
+            inflater.end();
+        }
+    }
+}
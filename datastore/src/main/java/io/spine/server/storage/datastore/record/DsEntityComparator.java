@@ -38,11 +38,11 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.io.Serializable;
 import java.util.Comparator;
-import java.util.function.Supplier;
+import java.util.EnumMap;
+import java.util.Map;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static io.spine.util.Exceptions.newIllegalStateException;
-import static java.util.Arrays.stream;
 import static java.util.Objects.requireNonNull;
 
 /**
@@ -51,6 +51,9 @@ import static java.util.Objects.requireNonNull;
  *
  * <p>Comparator instances are supplied column and direction using
  * {@link io.spine.query.SortBy sorting} clause.
+ *
+ * <p>The {@code null} values go first in the ascending order, and last in the descending one.
+ * Two {@code null} values are equal, so the entities are then compared by the next column.
  */
 public class DsEntityComparator implements Comparator<Entity>, Serializable {
 
@@ -67,11 +70,11 @@ public class DsEntityComparator implements Comparator<Entity>, Serializable {
         checkNotNull(a);
         checkNotNull(b);
 
-        Comparable aValue = ComparableValueExtractor.comparable(a.getValue(column));
-        Comparable bValue = ComparableValueExtractor.comparable(b.getValue(column));
+        Comparable aValue = comparableValue(a, column);
+        Comparable bValue = comparableValue(b, column);
 
         if (aValue == null) {
-            return -1;
+            return bValue == null ? 0 : -1;
         }
         if (bValue == null) {
             return +1;
@@ -82,6 +85,9 @@ public class DsEntityComparator implements Comparator<Entity>, Serializable {
 
     /**
      * Creates an entity comparator instance which implements the provided {@link OrderBy} clause.
+     *
+     * <p>The comparator extracts the compared values from the entities upon each comparison.
+     * To sort many entities, consider comparing their {@linkplain SortKey sort keys} instead.
      */
     public static <R extends Message>
     Comparator<Entity> implementing(Iterable<SortBy<?, R>> sorting) {
@@ -105,7 +111,15 @@ public class DsEntityComparator implements Comparator<Entity>, Serializable {
         return result;
     }
 
-    private static String columnPathOf(SortBy<?, ?> directive) {
+    /**
+     * Obtains the value of the column of the passed entity in a comparable form.
+     */
+    @SuppressWarnings("rawtypes")       /* To avoid generics hell. */
+    static @Nullable Comparable comparableValue(Entity entity, String column) {
+        return ComparableValueExtractor.comparable(entity.getValue(column));
+    }
+
+    static String columnPathOf(SortBy<?, ?> directive) {
         return directive
                 .column()
                 .name()
@@ -164,6 +178,11 @@ public class DsEntityComparator implements Comparator<Entity>, Serializable {
             }
         };
 
+        /**
+         * The extractors by the types of values they support.
+         */
+        private static final Map<ValueType, ComparableValueExtractor> byType = byType();
+
         private final ValueType valueType;
 
         ComparableValueExtractor(ValueType type) {
@@ -172,9 +191,12 @@ public class DsEntityComparator implements Comparator<Entity>, Serializable {
 
         abstract @Nullable Comparable extract(Value<?> value);
 
-        @SuppressWarnings("PMD.ReferenceEquality") // Enum value is checked.
-        private boolean matches(ValueType type) {
-            return type == valueType;
+        private static Map<ValueType, ComparableValueExtractor> byType() {
+            Map<ValueType, ComparableValueExtractor> result = new EnumMap<>(ValueType.class);
+            for (ComparableValueExtractor extractor : values()) {
+                result.put(extractor.valueType, extractor);
+            }
+            return result;
         }
 
         private static @Nullable Comparable comparable(Value<?> value) {
@@ -184,14 +206,11 @@ public class DsEntityComparator implements Comparator<Entity>, Serializable {
         }
 
         private static ComparableValueExtractor pickForType(ValueType type) {
-            return stream(values())
-                    .filter(extractType -> extractType.matches(type))
-                    .findFirst()
-                    .orElseThrow(unrecognized(type));
-        }
-
-        private static Supplier<IllegalStateException> unrecognized(ValueType type) {
-            return () -> newIllegalStateException("Unrecognized Datastore type %s.", type);
+            ComparableValueExtractor extractor = byType.get(type);
+            if (extractor == null) {
+                throw newIllegalStateException("Unrecognized Datastore type %s.", type);
+            }
+            return extractor;
         }
     }
 }
@@ -27,12 +27,18 @@
 package io.spine.server.storage.datastore.record;
 
 import com.google.cloud.datastore.Entity;
+import com.google.cloud.datastore.EntityQuery;
 import com.google.cloud.datastore.Key;
+import com.google.cloud.datastore.ProjectionEntity;
+import com.google.cloud.datastore.Query;
+import com.google.cloud.datastore.StructuredQuery;
 import com.google.cloud.datastore.Value;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
 import com.google.protobuf.Message;
+import io.spine.query.ColumnName;
 import io.spine.query.RecordQuery;
 import io.spine.server.storage.ColumnMapping;
 import io.spine.server.storage.RecordSpec;
@@ -43,15 +49,23 @@ import io.spine.server.storage.datastore.DatastoreStorageFactory;
 import io.spine.server.storage.datastore.DatastoreWrapper;
 import io.spine.server.storage.datastore.Kind;
 import io.spine.server.storage.datastore.TransactionWrapper;
+import io.spine.server.storage.datastore.config.CompressionSetting;
+import io.spine.server.storage.datastore.config.GroupCommitSetting;
+import io.spine.server.storage.datastore.config.QueryConcurrency;
+import io.spine.server.storage.datastore.config.ReadConsistency;
 import io.spine.server.storage.datastore.config.StorageConfiguration;
 import io.spine.server.storage.datastore.config.TxSetting;
 import io.spine.server.storage.datastore.query.DsLookup;
 import io.spine.server.storage.datastore.query.FilterAdapter;
 import io.spine.type.TypeUrl;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.util.Iterator;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.Iterators.transform;
 import static io.spine.server.storage.datastore.record.Entities.builderFromMessage;
 import static io.spine.util.Exceptions.newIllegalStateException;
@@ -64,12 +78,24 @@ import static io.spine.util.Exceptions.newIllegalStateException;
 public class DsRecordStorage<I, R extends Message> extends RecordStorage<I, R> {
 
     private final DatastoreWrapper datastore;
+
+    /**
+     * The medium to read from Datastore outside of transactions.
+     *
+     * <p>Either the {@link #datastore} itself, or its eventually consistent view, depending on
+     * the {@linkplain ReadConsistency read consistency} of this storage.
+     */
+    private final DatastoreMedium reader;
     private final TypeUrl typeUrl;
     private final Kind kind;
     private final DsEntitySpec<I, R> dsSpec;
     private final FilterAdapter columnFilterAdapter;
     private final ColumnMapping<Value<?>> columnMapping;
     private final TxSetting txSetting;
+    private final @Nullable GroupCommit groupCommit;
+    private final QueryConcurrency queryConcurrency;
+    private final CompressionSetting compression;
+    private final ChunkedRecords chunkedRecords;
 
     /**
      * Creates a new instance of the storage according to the passed configuration.
@@ -78,12 +104,38 @@ public class DsRecordStorage<I, R extends Message> extends RecordStorage<I, R> {
         super(config.context(), config.recordSpec()
                                       .recordSpec());
         this.datastore = config.datastore();
-        columnMapping = config.columnMapping();
+        this.reader = reader(datastore, config.readConsistency());
+        columnMapping = CachingColumnMapping.of(config.columnMapping());
         this.columnFilterAdapter = FilterAdapter.of(columnMapping);
         this.txSetting = config.txSetting();
         this.dsSpec = config.recordSpec();
         this.kind = dsSpec.kind();
         this.typeUrl = TypeUrl.of(config.storedType());
+        this.groupCommit = groupCommit(config.groupCommit());
+        this.queryConcurrency = config.queryConcurrency();
+        this.compression = config.compression();
+        this.chunkedRecords = new ChunkedRecords(this::anyChunked);
+    }
+
+    private static DatastoreMedium
+    reader(DatastoreWrapper datastore, ReadConsistency consistency) {
+        return consistency.isEventual()
+               ? datastore.withEventualConsistency()
+               : datastore;
+    }
+
+    private boolean anyChunked() {
+        return datastore.read(RecordChunks.chunkedRecordQuery(kind))
+                        .hasNext();
+    }
+
+    private @Nullable GroupCommit groupCommit(GroupCommitSetting setting) {
+        if (!setting.isEnabled()) {
+            return null;
+        }
+        return new GroupCommit(setting,
+                               batch -> write(storage -> storage.createOrUpdate(batch)),
+                               entity -> write(storage -> storage.createOrUpdate(entity)));
     }
 
     @Override
@@ -92,24 +144,314 @@ public class DsRecordStorage<I, R extends Message> extends RecordStorage<I, R> {
         return Indexes.indexIterator(datastore, kind(), recordSpec().idType());
     }
 
+    /**
+     * Obtains the identifiers of all the stored records in several independent partitions.
+     *
+     * <p>The partitions split the key space of the stored records into the ranges of about
+     * the same size. They may be read in parallel.
+     *
+     * @param partitionCount
+     *         the desired number of partitions; must be positive
+     * @return lazily evaluated iterators of the identifiers, one per partition
+     * @see DatastoreWrapper#readPartitioned(com.google.cloud.datastore.StructuredQuery, int)
+     */
+    public ImmutableList<Iterator<I>> indexPartitioned(int partitionCount) {
+        checkNotClosed();
+        return Indexes.partitionedIndex(datastore, kind(), recordSpec().idType(), partitionCount);
+    }
+
+    /**
+     * Reads all the stored records in several independent partitions.
+     *
+     * <p>The partitions split the key space of the stored records into the ranges of about
+     * the same size. They may be read in parallel, which is reasonable for full scans of large
+     * storages, such as data migrations or exports.
+     *
+     * @param partitionCount
+     *         the desired number of partitions; must be positive
+     * @return lazily evaluated iterators of the records, one per partition
+     * @see DatastoreWrapper#readPartitioned(com.google.cloud.datastore.StructuredQuery, int)
+     */
+    public ImmutableList<Iterator<R>> readAllPartitioned(int partitionCount) {
+        checkNotClosed();
+        EntityQuery query = Query.newEntityQueryBuilder()
+                                 .setKind(kind.value())
+                                 .build();
+        ImmutableList<Iterator<R>> result =
+                datastore.readPartitioned(query, partitionCount)
+                         .stream()
+                         .map(entities -> transform(entities, this::toRecord))
+                         .collect(toImmutableList());
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>If the query may be evaluated by Datastore entirely, only the keys of the matching
+     * records are read. Otherwise, the records are read and their identifiers are obtained
+     * from them.
+     *
+     * <p>If the transactions are enabled for this storage, the keys are read in
+     * a read-only transaction before this method returns.
+     */
     @Override
     protected Iterator<I> index(RecordQuery<I, R> query) {
+        Optional<Iterator<Key>> keys = txSetting.txEnabled()
+                ? read((storage) -> lookup(storage).with(query)
+                                                    .executeForKeys()
+                                                    .map(DsRecordStorage::readToEnd))
+                : lookup(reader).with(query)
+                                .executeForKeys();
+        if (keys.isPresent()) {
+            return Indexes.idsOf(keys.get(), recordSpec().idType());
+        }
         RecordSpec<I, R, ?> spec = recordSpec();
         Iterator<R> recordIterator = readAllRecords(query);
         Iterator<I> result = transform(recordIterator, spec::idFromRecord);
         return result;
     }
 
+    /**
+     * Reads a page of the records matching the passed query.
+     *
+     * <p>Up to {@code pageSize} records are read, starting right after the page, to which
+     * the passed token refers. To read the next page, pass the
+     * {@linkplain RecordPage#nextPageToken() token} of the returned page. Reading may be resumed
+     * later, even by another process, without re-reading the previous pages.
+     *
+     * <p>Only the queries run as a single Datastore query may be read page by page.
+     * Those are the queries without identifiers and without "OR" predicates. The query must not
+     * be limited.
+     *
+     * @param query
+     *         the query to read the results of
+     * @param pageSize
+     *         the maximum number of records on the page; must be positive
+     * @param pageToken
+     *         the token of the previous page, or {@code null} to read the first page
+     * @return the page of records
+     * @throws IllegalArgumentException
+     *         if the query cannot be read page by page, or the page size is not positive
+     */
+    public RecordPage<R> readPage(RecordQuery<I, R> query,
+                                  int pageSize,
+                                  @Nullable String pageToken) {
+        checkNotClosed();
+        checkNotNull(query);
+        return read((storage) -> lookup(storage).with(query)
+                                                .executePage(pageSize, pageToken));
+    }
+
+    /**
+     * Counts the records matching the passed query.
+     *
+     * <p>The records are not read. Where possible, only the keys of the matching records are
+     * read via keys-only Datastore queries.
+     *
+     * @param query
+     *         the query to count the matching records for
+     * @return the number of the matching records, but no more than the limit of the query,
+     *         if set
+     */
+    public long count(RecordQuery<I, R> query) {
+        checkNotClosed();
+        checkNotNull(query);
+        return read((storage) -> lookup(storage).with(query)
+                                                .count());
+    }
+
+    /**
+     * Tells whether any record matches the passed query.
+     *
+     * <p>The records are not read. The lookup stops as soon as the first matching record
+     * is found.
+     *
+     * @param query
+     *         the query to check
+     * @return {@code true} if at least one record matches the query, {@code false} otherwise
+     */
+    public boolean exists(RecordQuery<I, R> query) {
+        checkNotClosed();
+        checkNotNull(query);
+        return read((storage) -> lookup(storage).with(query)
+                                                .exists());
+    }
+
     @Override
     public void write(I id, R record) {
         writeRecord(RecordWithColumns.of(id, record));
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>If the {@linkplain GroupCommitSetting group commit} is enabled for this storage,
+     * the record is written along with the records written concurrently by other threads.
+     *
+     * <p>A record too big for a single Datastore Entity is {@linkplain RecordChunks split into
+     * chunks}, which are written bypassing the group commit. Once a record is written,
+     * the chunks of its previous versions are deleted.
+     */
     @Override
     protected void writeRecord(RecordWithColumns<I, R> record) {
         checkNotNull(record, "Record is null.");
         Entity entity = entityRecordToEntity(record);
-        write((storage) -> storage.createOrUpdate(entity));
+        writeEntity(entity);
+    }
+
+    /**
+     * Asynchronously writes the record with the passed identifier.
+     *
+     * <p>The Datastore Entity is composed in the caller thread. The write itself is run
+     * according to the {@linkplain DatastoreWrapper#execution() execution} of the Datastore
+     * wrapper.
+     *
+     * @param id
+     *         the identifier of the record
+     * @param record
+     *         the record to write
+     * @return the future completed when the record is written
+     */
+    public CompletableFuture<Void> writeAsync(I id, R record) {
+        checkNotClosed();
+        checkNotNull(id);
+        checkNotNull(record);
+        Entity entity = entityRecordToEntity(RecordWithColumns.of(id, record));
+        return datastore.execution()
+                        .supply(() -> {
+                            writeEntity(entity);
+                            return null;
+                        });
+    }
+
+    private void writeEntity(Entity entity) {
+        ImmutableList<Entity> split = RecordChunks.split(entity);
+        if (split.size() > 1) {
+            writeChunked(split);
+            return;
+        }
+        if (groupCommit != null) {
+            groupCommit.write(entity);
+        } else {
+            write((storage) -> storage.createOrUpdate(entity));
+        }
+        deleteStaleChunks(ImmutableList.of(entity.getKey()));
+    }
+
+    /**
+     * Writes the record split into chunks.
+     *
+     * <p>First, the chunks of the new version are written. They may be written by several
+     * concurrent requests, as no reader sees them until the entity of the record points to
+     * their version. Then, the entity of the record is written in a transaction, which also
+     * deletes the chunks of the other versions.
+     *
+     * <p>The transaction checks that all the new chunks are still stored. A concurrent write of
+     * the same record may have deleted them, in which case this write fails.
+     *
+     * @param split
+     *         the chunks followed by the entity of the record
+     * @throws IllegalStateException
+     *         if the new chunks have been deleted by a concurrent write
+     */
+    private void writeChunked(ImmutableList<Entity> split) {
+        int recordIndex = split.size() - 1;
+        Entity record = split.get(recordIndex);
+        Key key = record.getKey();
+        chunkedRecords.onChunked(key);
+        datastore.createOrUpdate(split.subList(0, recordIndex));
+        try (TransactionWrapper tx = newTransaction()) {
+            ImmutableList<Key> found = ImmutableList.copyOf(tx.read(RecordChunks.chunksQuery(key)));
+            if (!ImmutableSet.copyOf(found)
+                             .containsAll(RecordChunks.chunkKeys(record))) {
+                throw newIllegalStateException(
+                        "The chunks of the record `%s` were deleted by a concurrent write.", key);
+            }
+            tx.createOrUpdate(record);
+            ImmutableList<Key> stale = RecordChunks.staleChunks(record, found);
+            if (!stale.isEmpty()) {
+                tx.delete(stale.toArray(new Key[0]));
+            }
+            tx.commit();
+        }
+    }
+
+    /**
+     * Deletes the chunks no longer used by the records with the passed keys.
+     *
+     * <p>Unless a record of this storage {@linkplain ChunkedRecords may be chunked}, nothing
+     * is done.
+     *
+     * <p>Otherwise, the chunks of each record are looked up by a keys-only ancestor query.
+     * The queries are run concurrently, according to the {@linkplain QueryConcurrency query
+     * concurrency} of this storage. Most of the records have no chunks, so nothing else is done.
+     *
+     * <p>Otherwise, the chunks are deleted in a transaction, which keeps the chunks of
+     * the current version of the record. So a record concurrently overwritten by
+     * a chunked version stays intact.
+     */
+    private void deleteStaleChunks(ImmutableList<Key> recordKeys) {
+        ImmutableList<Key> keys = recordKeys.stream()
+                                            .filter(chunkedRecords::mayHaveChunks)
+                                            .collect(toImmutableList());
+        if (keys.isEmpty()) {
+            return;
+        }
+        ImmutableList<StructuredQuery<Key>> queries =
+                keys.stream()
+                    .map(RecordChunks::chunksQuery)
+                    .collect(toImmutableList());
+        ImmutableList<ImmutableList<Key>> found =
+                datastore.readConcurrently(queries,
+                                           queryConcurrency.maxConcurrentQueries(),
+                                           ImmutableList::copyOf);
+        for (int i = 0; i < keys.size(); i++) {
+            Key recordKey = keys.get(i);
+            boolean hasChunks = found.get(i)
+                                     .stream()
+                                     .anyMatch(chunk -> recordKey.equals(chunk.getParent()));
+            if (hasChunks) {
+                deleteStaleChunks(recordKey);
+            }
+        }
+    }
+
+    private void deleteStaleChunks(Key recordKey) {
+        try (TransactionWrapper tx = newTransaction()) {
+            ImmutableList<Key> chunks =
+                    ImmutableList.copyOf(tx.read(RecordChunks.chunksQuery(recordKey)));
+            ImmutableList<ProjectionEntity> version =
+                    ImmutableList.copyOf(tx.read(RecordChunks.versionQuery(recordKey)));
+            ImmutableList<Key> stale = RecordChunks.staleChunks(recordKey, chunks, version);
+            if (!stale.isEmpty()) {
+                tx.delete(stale.toArray(new Key[0]));
+                tx.commit();
+            }
+        }
+    }
+
+    /**
+     * Asynchronously reads the record with the passed identifier.
+     *
+     * <p>The Datastore key is composed in the caller thread. The read itself is run
+     * according to the {@linkplain DatastoreWrapper#execution() execution} of the Datastore
+     * wrapper.
+     *
+     * <p>The record is returned as it is stored, with no field mask applied.
+     *
+     * @param id
+     *         the identifier of the record
+     * @return the future record, or {@code Optional.empty()} if there is no record
+     *         with such an identifier
+     */
+    public CompletableFuture<Optional<R>> readAsync(I id) {
+        checkNotClosed();
+        checkNotNull(id);
+        Key key = keyOf(id);
+        return datastore.execution()
+                        .supply(() -> read((storage) -> storage.read(key))
+                                .map(this::toRecord));
     }
 
     @Override
@@ -117,34 +459,75 @@ public class DsRecordStorage<I, R extends Message> extends RecordStorage<I, R> {
         checkNotNull(records);
 
         ImmutableList.Builder<Entity> entitiesToWrite = ImmutableList.builder();
+        ImmutableList.Builder<ImmutableList<Entity>> chunkedToWrite = ImmutableList.builder();
         for (RecordWithColumns<I, R> record : records) {
             Entity entity = entityRecordToEntity(record);
-            entitiesToWrite.add(entity);
+            ImmutableList<Entity> split = RecordChunks.split(entity);
+            if (split.size() > 1) {
+                chunkedToWrite.add(split);
+            } else {
+                entitiesToWrite.add(entity);
+            }
         }
         ImmutableList<Entity> prepared = entitiesToWrite.build();
         write((storage) -> datastore.createOrUpdate(prepared));
+        chunkedToWrite.build()
+                      .forEach(this::writeChunked);
+        deleteStaleChunks(prepared.stream()
+                                  .map(Entity::getKey)
+                                  .collect(toImmutableList()));
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Unless the transactions are enabled for this storage, the records are read
+     * {@linkplain io.spine.server.storage.datastore.query.PreparedQuery#executeLazily() lazily}
+     * where the query allows that.
+     */
     @Override
     protected Iterator<R> readAllRecords(RecordQuery<I, R> query) {
+        if (!txSetting.txEnabled()) {
+            return lookup(reader).with(query)
+                                 .executeLazily();
+        }
         Iterable<R> result =
-                read((storage) -> DsLookup.onTopOf(datastore, columnFilterAdapter, dsSpec)
-                                          .with(query)
-                                          .execute());
+                read((storage) -> lookup(storage).with(query)
+                                                 .execute());
         return result.iterator();
     }
 
+    /**
+     * Creates a lookup, which reads via the passed medium.
+     *
+     * <p>Within a {@linkplain #read(ReadOperation) read operation}, the medium passed to
+     * the operation must be used, so that the transactional reads are performed in
+     * the transaction.
+     */
+    private DsLookup<I, R> lookup(DatastoreMedium storage) {
+        return DsLookup.onTopOf(storage, columnFilterAdapter, dsSpec)
+                       .withConcurrency(queryConcurrency);
+    }
+
+    private static <T> Iterator<T> readToEnd(Iterator<T> iterator) {
+        return ImmutableList.copyOf(iterator)
+                            .iterator();
+    }
+
     /**
      * {@inheritDoc}
      *
      * <p>Always returns {@code true}, as another request to Datastore is required to tell whether
      * the record has been deleted.
+     *
+     * <p>The {@linkplain RecordChunks chunks} of the record, if any, are deleted as well.
      */
     @CanIgnoreReturnValue
     @Override
     protected boolean deleteRecord(I id) {
         Key key = keyOf(id);
         write(storage -> storage.delete(key));
+        deleteStaleChunks(ImmutableList.of(key));
         return true;
     }
 
@@ -166,19 +549,20 @@ public class DsRecordStorage<I, R extends Message> extends RecordStorage<I, R> {
 
     /**
      * Creates a new Datastore {@code Entity} from the passed {@code RecordWithColumns}.
+     *
+     * <p>The column values are converted with the type mappings resolved once per Java type
+     * for this storage.
      */
     protected final Entity entityRecordToEntity(RecordWithColumns<I, R> recordWithCols) {
         R record = recordWithCols.record();
         I id = recordWithCols.id();
         Key key = keyOf(id);
-        Entity.Builder entity = builderFromMessage(record, key);
+        Entity.Builder entity = builderFromMessage(record, key, compression);
 
-        recordWithCols.columnNames()
-                      .forEach(columnName -> {
-                          Value<?> columnValue = recordWithCols.columnValue(columnName,
-                                                                            columnMapping);
-                          entity.set(columnName.value(), columnValue);
-                      });
+        for (ColumnName columnName : recordWithCols.columnNames()) {
+            Value<?> columnValue = recordWithCols.columnValue(columnName, columnMapping);
+            entity.set(columnName.value(), columnValue);
+        }
 
         Entity completeEntity = entity.build();
         return completeEntity;
@@ -191,6 +575,16 @@ public class DsRecordStorage<I, R extends Message> extends RecordStorage<I, R> {
         return datastore.newTransaction();
     }
 
+    /**
+     * Starts a new read-only Datastore transaction, and returns a {@link TransactionWrapper}
+     * around it.
+     *
+     * @see DatastoreWrapper#newReadOnlyTransaction()
+     */
+    protected final TransactionWrapper newReadOnlyTransaction() {
+        return datastore.newReadOnlyTransaction();
+    }
+
     /**
      * Converts a Datastore {@code Entity} to the record of type served by this storage.
      */
@@ -198,9 +592,17 @@ public class DsRecordStorage<I, R extends Message> extends RecordStorage<I, R> {
         return Entities.toMessage(entity, typeUrl);
     }
 
+    /**
+     * Performs the read operation.
+     *
+     * <p>If the transactions are enabled for this storage, the operation is performed in
+     * a {@linkplain DatastoreWrapper#newReadOnlyTransaction() read-only transaction}. Thus,
+     * the operation observes a strongly consistent snapshot of the data, but does not contend
+     * with the concurrent writers.
+     */
     private <V> V read(ReadOperation<V> operation) {
         if (txSetting.txEnabled()) {
-            try (TransactionWrapper tx = newTransaction()) {
+            try (TransactionWrapper tx = newReadOnlyTransaction()) {
                 V result = operation.perform(tx);
                 tx.commit();
                 return result;
@@ -209,7 +611,7 @@ public class DsRecordStorage<I, R extends Message> extends RecordStorage<I, R> {
                         "Error executing `ReadOperation` transactionally.");
             }
         } else {
-            V result = operation.perform(datastore);
+            V result = operation.perform(reader);
             return result;
         }
     }
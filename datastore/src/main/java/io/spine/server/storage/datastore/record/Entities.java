@@ -30,18 +30,14 @@ import com.google.cloud.datastore.Blob;
 import com.google.cloud.datastore.BlobValue;
 import com.google.cloud.datastore.Entity;
 import com.google.cloud.datastore.Key;
-import com.google.protobuf.Any;
-import com.google.protobuf.ByteString;
-import com.google.protobuf.Internal;
 import com.google.protobuf.Message;
+import io.spine.server.storage.datastore.config.CompressionSetting;
 import io.spine.type.TypeUrl;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.util.function.Function;
 
 import static com.google.common.base.Preconditions.checkNotNull;
-import static com.google.common.base.Preconditions.checkState;
-import static io.spine.protobuf.AnyPacker.unpack;
 
 /**
  * Utility class for converting {@linkplain Message proto messages} into
@@ -50,10 +46,9 @@ import static io.spine.protobuf.AnyPacker.unpack;
 public final class Entities {
 
     /**
-     * The BLOB field of {@link Entity} storing the byte representation of {@code Any},
-     * in turn being the packed Protobuf message.
+     * The BLOB field of {@link Entity} storing the serialized Protobuf message.
      */
-    private static final String bytes = "bytes";
+    static final String bytes = "bytes";
 
     /** Prevent utility class instantiation. */
     private Entities() {
@@ -73,26 +68,20 @@ public final class Entities {
      *         required message type
      * @return message contained in the {@link Entity}
      */
-    @SuppressWarnings({"unchecked", "TypeParameterUnusedInFormals"} /* Rely on caller. */)
+    @SuppressWarnings("TypeParameterUnusedInFormals" /* Rely on caller. */)
     public static <M extends Message> M toMessage(@Nullable Entity entity, TypeUrl type) {
         checkNotNull(type);
-        if (entity == null) {
-            return defaultMessage(type);
-        }
-        Any wrapped = toAny(entity, type);
-        M result = (M) unpack(wrapped);
-        return result;
+        MessageCodec<M> codec = MessageCodec.of(type);
+        return toMessage(entity, codec);
     }
 
-    private static Any toAny(Entity entity, TypeUrl type) {
-        String typeName = type.value();
+    private static <M extends Message> M toMessage(@Nullable Entity entity,
+                                                   MessageCodec<M> codec) {
+        if (entity == null) {
+            return codec.defaultInstance();
+        }
         Blob value = entity.getBlob(bytes);
-        ByteString valueBytes = ByteString.copyFrom(value.toByteArray());
-        Any result = Any
-                .newBuilder()
-                .setValue(valueBytes)
-                .setTypeUrl(typeName)
-                .build();
+        M result = codec.decode(value);
         return result;
     }
 
@@ -109,7 +98,8 @@ public final class Entities {
      */
     public static <M extends Message> Function<Entity, M> toMessage(TypeUrl type) {
         checkNotNull(type);
-        return entity -> toMessage(entity, type);
+        MessageCodec<M> codec = MessageCodec.of(type);
+        return entity -> toMessage(entity, codec);
     }
 
     /**
@@ -138,11 +128,29 @@ public final class Entities {
      * @return new instance of {@code Entity.Builder} containing serialized proto message
      */
     public static Entity.Builder builderFromMessage(Message message, Key key) {
+        return builderFromMessage(message, key, CompressionSetting.disabled());
+    }
+
+    /**
+     * Creates an incomplete {@link com.google.datastore.v1.Entity.Builder} with given {@link Key}
+     * and from the given proto {@code Message}, compressing the message if the passed setting
+     * tells so.
+     *
+     * @param message
+     *         source of data to be put into the {@link Entity}
+     * @param key
+     *         instance of {@link Key} to be assigned to the {@link Entity}
+     * @param compression
+     *         the setting telling whether to compress the serialized message
+     * @return new instance of {@code Entity.Builder} containing serialized proto message
+     */
+    public static Entity.Builder
+    builderFromMessage(Message message, Key key, CompressionSetting compression) {
         checkNotNull(message);
         checkNotNull(key);
+        checkNotNull(compression);
 
-        byte[] messageBytes = message.toByteArray();
-        Blob valueBlob = Blob.copyFrom(messageBytes);
+        Blob valueBlob = MessageCodec.encode(message, compression);
         BlobValue blobValue = BlobValue
                 .newBuilder(valueBlob)
                 .setExcludeFromIndexes(true)
@@ -152,15 +160,4 @@ public final class Entities {
                 .set(bytes, blobValue);
         return builder;
     }
-
-    @SuppressWarnings({"unchecked", "TypeParameterUnusedInFormals"} /* Rely on caller. */)
-    private static <M extends Message> M defaultMessage(TypeUrl type) {
-        Class<M> messageClass = (Class<M>) type.toJavaClass();
-        checkState(messageClass != null,
-                   "Not found class for type url \"%s\". Try to rebuild the project.",
-                   type.toTypeName()
-                       .value());
-        M message = Internal.getDefaultInstance(messageClass);
-        return message;
-    }
 }
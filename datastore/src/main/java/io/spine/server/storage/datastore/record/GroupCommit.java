@@ -0,0 +1,247 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.storage.datastore.record;
+
+import com.google.cloud.datastore.Entity;
+import com.google.cloud.datastore.Key;
+import com.google.common.collect.ImmutableList;
+import io.spine.server.storage.datastore.config.GroupCommitSetting;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Consumer;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Strings.nullToEmpty;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Groups the concurrent single-entity writes into multi-entity writes.
+ *
+ * <p>The writes are grouped per Datastore namespace. The first writer to a namespace opens
+ * a new batch and becomes its leader. The writers coming while the batch is open join it.
+ * The leader waits for the {@linkplain GroupCommitSetting#window() time window} to pass or for
+ * the batch to {@linkplain GroupCommitSetting#maxBatchSize() become full}, whichever is first.
+ * Then it closes the batch and writes it. The writer which fills the batch closes it
+ * immediately, so that the next writer opens a new one.
+ *
+ * <p>If several entities with the same key are written to the same batch, only the last one
+ * is written. All their writers observe the outcome of that write.
+ *
+ * <p>If the batch write fails, the entities of the batch are written one by one. Thus, each
+ * writer observes the outcome of its own entity.
+ *
+ * <p>Every writer, including the leader, is blocked until its entity is written.
+ */
+final class GroupCommit {
+
+    private final GroupCommitSetting setting;
+    private final Consumer<ImmutableList<Entity>> batchWriter;
+    private final Consumer<Entity> singleWriter;
+
+    /**
+     * The currently open batches per namespace.
+     *
+     * <p>Guarded by {@code this}.
+     */
+    private final Map<String, Batch> openBatches = new HashMap<>();
+
+    /**
+     * Creates a new instance.
+     *
+     * @param setting
+     *         the enabled group commit setting
+     * @param batchWriter
+     *         writes several entities in a single request
+     * @param singleWriter
+     *         writes a single entity
+     */
+    GroupCommit(GroupCommitSetting setting,
+                Consumer<ImmutableList<Entity>> batchWriter,
+                Consumer<Entity> singleWriter) {
+        checkNotNull(setting);
+        checkArgument(setting.isEnabled(), "The group commit must be enabled.");
+        this.setting = setting;
+        this.batchWriter = checkNotNull(batchWriter);
+        this.singleWriter = checkNotNull(singleWriter);
+    }
+
+    /**
+     * Writes the passed entity as a part of a batch.
+     *
+     * <p>Blocks until the batch containing the entity is written.
+     *
+     * @throws RuntimeException
+     *         the exception thrown while writing the entity
+     */
+    void write(Entity entity) {
+        checkNotNull(entity);
+        String namespace = nullToEmpty(entity.getKey()
+                                             .getNamespace());
+        Batch batch;
+        CompletableFuture<Void> outcome;
+        boolean leader;
+        synchronized (this) {
+            batch = openBatches.get(namespace);
+            leader = batch == null;
+            if (leader) {
+                batch = new Batch();
+                openBatches.put(namespace, batch);
+            }
+            outcome = batch.add(entity);
+            if (batch.size() >= setting.maxBatchSize()) {
+                openBatches.remove(namespace);
+                batch.markFull();
+            }
+        }
+        if (leader) {
+            batch.awaitFull();
+            close(namespace, batch);
+            batch.flush();
+        }
+        await(outcome);
+    }
+
+    private synchronized void close(String namespace, Batch batch) {
+        openBatches.remove(namespace, batch);
+    }
+
+    private static void await(CompletableFuture<Void> outcome) {
+        try {
+            outcome.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Entities written together and the outcomes of their writes.
+     */
+    private final class Batch {
+
+        /**
+         * The entities to write along with their outcomes, by the entity key.
+         *
+         * <p>Guarded by the enclosing {@code GroupCommit} instance while the batch is open.
+         * After that, it is accessed only by the leader.
+         */
+        private final Map<Key, Pending> entities = new LinkedHashMap<>();
+        private final CountDownLatch full = new CountDownLatch(1);
+
+        private CompletableFuture<Void> add(Entity entity) {
+            Key key = entity.getKey();
+            Pending pending = entities.get(key);
+            if (pending == null) {
+                pending = new Pending(entity);
+                entities.put(key, pending);
+            } else {
+                pending.entity = entity;
+            }
+            return pending.outcome;
+        }
+
+        private int size() {
+            return entities.size();
+        }
+
+        private void markFull() {
+            full.countDown();
+        }
+
+        /**
+         * Waits for the batch to become full, but no longer than the configured time window.
+         */
+        private void awaitFull() {
+            try {
+                full.await(setting.window()
+                                  .toNanos(), NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread()
+                      .interrupt();
+            }
+        }
+
+        private void flush() {
+            ImmutableList<Entity> toWrite =
+                    entities.values()
+                            .stream()
+                            .map(pending -> pending.entity)
+                            .collect(ImmutableList.toImmutableList());
+            try {
+                batchWriter.accept(toWrite);
+                entities.values()
+                        .forEach(pending -> pending.outcome.complete(null));
+            } catch (RuntimeException e) {
+                if (toWrite.size() == 1) {
+                    entities.values()
+                            .forEach(pending -> pending.outcome.completeExceptionally(e));
+                } else {
+                    entities.values()
+                            .forEach(this::writeSeparately);
+                }
+            } catch (Error e) {
+                entities.values()
+                        .forEach(pending -> pending.outcome.completeExceptionally(e));
+                throw e;
+            }
+        }
+
+        private void writeSeparately(Pending pending) {
+            try {
+                singleWriter.accept(pending.entity);
+                pending.outcome.complete(null);
+            } catch (RuntimeException e) {
+                pending.outcome.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * An entity to write and the outcome of the write.
+     */
+    private static final class Pending {
+
+        private Entity entity;
+        private final CompletableFuture<Void> outcome = new CompletableFuture<>();
+
+        private Pending(Entity entity) {
+            this.entity = entity;
+        }
+    }
+}
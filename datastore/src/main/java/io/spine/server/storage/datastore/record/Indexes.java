@@ -29,6 +29,7 @@ package io.spine.server.storage.datastore.record;
 import com.google.cloud.datastore.Key;
 import com.google.cloud.datastore.Query;
 import com.google.cloud.datastore.StructuredQuery;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Streams;
 import io.spine.server.storage.datastore.DatastoreWrapper;
 import io.spine.server.storage.datastore.Kind;
@@ -39,6 +40,7 @@ import java.util.Iterator;
 import java.util.function.Function;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 
 /**
  * A utility for generating the
@@ -75,7 +77,58 @@ public final class Indexes {
                                           .setKind(kind.value())
                                           .build();
         Iterator<Key> allEntities = datastore.read(query);
-        Iterator<I> idIterator = Streams.stream(allEntities)
+        Iterator<I> idIterator = idsOf(allEntities, idType);
+        return idIterator;
+    }
+
+    /**
+     * Retrieves the ID index for the given {@code kind} in several independent partitions.
+     *
+     * <p>The partitions may be read in parallel.
+     *
+     * @param datastore
+     *         datastore to get the indexes for
+     * @param kind
+     *         the kind if the records in the datastore
+     * @param partitionCount
+     *         the desired number of partitions; must be positive
+     * @param <I>
+     *         type of the IDs to retrieve
+     * @return lazily evaluated iterators of the IDs, one per partition
+     * @see DatastoreWrapper#readPartitioned(StructuredQuery, int)
+     */
+    public static <I> ImmutableList<Iterator<I>>
+    partitionedIndex(DatastoreWrapper datastore, Kind kind, Class<I> idType, int partitionCount) {
+        checkNotNull(datastore);
+        checkNotNull(kind);
+        checkNotNull(idType);
+
+        StructuredQuery<Key> query = Query.newKeyQueryBuilder()
+                                          .setKind(kind.value())
+                                          .build();
+        ImmutableList<Iterator<I>> result =
+                datastore.readPartitioned(query, partitionCount)
+                         .stream()
+                         .map(keys -> idsOf(keys, idType))
+                         .collect(toImmutableList());
+        return result;
+    }
+
+    /**
+     * Transforms the keys of the storage records into the record identifiers.
+     *
+     * @param keys
+     *         the keys of the records
+     * @param idType
+     *         the type of the record identifiers
+     * @param <I>
+     *         type of the IDs to retrieve
+     * @return an {@link Iterator} of the IDs, which is evaluated lazily
+     */
+    public static <I> Iterator<I> idsOf(Iterator<Key> keys, Class<I> idType) {
+        checkNotNull(keys);
+        checkNotNull(idType);
+        Iterator<I> idIterator = Streams.stream(keys)
                                         .map(idExtractor(idType))
                                         .iterator();
         return idIterator;
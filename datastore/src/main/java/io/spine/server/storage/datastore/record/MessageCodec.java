@@ -0,0 +1,145 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.storage.datastore.record;
+
+import com.google.cloud.datastore.Blob;
+import com.google.protobuf.Internal;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Message;
+import com.google.protobuf.Parser;
+import io.spine.server.storage.datastore.config.CompressionSetting;
+import io.spine.type.TypeUrl;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static io.spine.util.Exceptions.newIllegalStateException;
+
+/**
+ * Converts the messages of a particular type to the binary form stored in Datastore Entities,
+ * and back.
+ *
+ * <p>The Java class of the type is resolved only once, when the codec is created. The codecs
+ * are cached per type. Then, each message is parsed with the Protobuf {@link Parser} of its type
+ * right from the {@linkplain Blob#asReadOnlyByteBuffer() buffer} of the stored {@code Blob},
+ * without copying its bytes into an intermediate {@code Any}.
+ *
+ * <p>The messages may be {@linkplain Compression compressed}, if the {@link CompressionSetting}
+ * tells so. The compressed messages are decoded transparently, regardless of the setting.
+ *
+ * @param <M>
+ *         the type of messages
+ */
+final class MessageCodec<M extends Message> {
+
+    private static final ConcurrentMap<TypeUrl, MessageCodec<?>> codecs =
+            new ConcurrentHashMap<>();
+
+    private final TypeUrl type;
+    private final M defaultInstance;
+    private final Parser<M> parser;
+
+    private MessageCodec(TypeUrl type, M defaultInstance) {
+        this.type = type;
+        this.defaultInstance = defaultInstance;
+        @SuppressWarnings("unchecked") // Guaranteed by Protobuf.
+        Parser<M> parser = (Parser<M>) defaultInstance.getParserForType();
+        this.parser = parser;
+    }
+
+    /**
+     * Obtains the codec for the messages of the passed type.
+     *
+     * @throws IllegalStateException
+     *         if there is no Java class for the type
+     */
+    @SuppressWarnings("unchecked") // Ensured by the key of the cache.
+    static <M extends Message> MessageCodec<M> of(TypeUrl type) {
+        checkNotNull(type);
+        return (MessageCodec<M>) codecs.computeIfAbsent(type, MessageCodec::create);
+    }
+
+    private static MessageCodec<?> create(TypeUrl type) {
+        Class<? extends Message> messageClass = type.toJavaClass();
+        checkState(messageClass != null,
+                   "Not found class for type url \"%s\". Try to rebuild the project.",
+                   type.toTypeName()
+                       .value());
+        Message defaultInstance = Internal.getDefaultInstance(messageClass);
+        return new MessageCodec<>(type, defaultInstance);
+    }
+
+    /**
+     * Returns the default instance of the message type.
+     */
+    M defaultInstance() {
+        return defaultInstance;
+    }
+
+    /**
+     * Parses the message from its stored binary form.
+     *
+     * @throws IllegalStateException
+     *         if the passed bytes are not a valid message of the type
+     */
+    M decode(Blob blob) {
+        checkNotNull(blob);
+        try {
+            M result = Compression.isCompressed(blob)
+                       ? parser.parseFrom(Compression.decompress(blob))
+                       : parser.parseFrom(blob.asReadOnlyByteBuffer());
+            return result;
+        } catch (InvalidProtocolBufferException e) {
+            throw newIllegalStateException(e, "Unable to parse a message of type `%s`.", type);
+        }
+    }
+
+    /**
+     * Serializes the message into the binary form to store.
+     *
+     * @param message
+     *         the message to serialize
+     * @param compression
+     *         the setting telling whether to compress the serialized message
+     * @return the binary form of the message
+     */
+    static Blob encode(Message message, CompressionSetting compression) {
+        checkNotNull(message);
+        checkNotNull(compression);
+        byte[] messageBytes = message.toByteArray();
+        if (compression.appliesTo(messageBytes.length)) {
+            Optional<Blob> compressed = Compression.compress(messageBytes);
+            if (compressed.isPresent()) {
+                return compressed.get();
+            }
+        }
+        return Blob.copyFrom(messageBytes);
+    }
+}
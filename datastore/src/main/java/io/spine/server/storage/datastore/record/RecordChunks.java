@@ -0,0 +1,386 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.storage.datastore.record;
+
+import com.google.cloud.datastore.Blob;
+import com.google.cloud.datastore.BlobValue;
+import com.google.cloud.datastore.Entity;
+import com.google.cloud.datastore.Key;
+import com.google.cloud.datastore.LongValue;
+import com.google.cloud.datastore.ProjectionEntity;
+import com.google.cloud.datastore.Query;
+import com.google.cloud.datastore.StringValue;
+import com.google.cloud.datastore.StructuredQuery;
+import com.google.common.collect.ImmutableList;
+import io.spine.annotation.Internal;
+import io.spine.server.storage.datastore.Kind;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.UUID;
+
+import static com.google.cloud.datastore.StructuredQuery.OrderBy.asc;
+import static com.google.cloud.datastore.StructuredQuery.PropertyFilter.hasAncestor;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.spine.server.storage.datastore.record.Entities.bytes;
+import static io.spine.util.Exceptions.newIllegalStateException;
+
+/**
+ * Splits the entities of the records too big for a single Datastore Entity into chunks,
+ * and assembles them back.
+ *
+ * <p>Datastore limits the size of an Entity to about 1 MiB. If the serialized record is bigger
+ * than {@link #MAX_CHUNK_SIZE}, its bytes are split into several child entities of
+ * the {@link #CHUNK_KIND} kind under the key of the record. The entity of the record itself
+ * keeps the columns and the number of chunks, but not the bytes.
+ *
+ * <p>Each time a record is split, its chunks get a new version. The entity of the record keeps
+ * the version along with the number of chunks. When read, the chunks are looked up by their
+ * keys, which are derived from the key of the record, the version and the number of chunks.
+ *
+ * <p>Thus, the chunks of a new version may be written before the entity of the record, while
+ * the readers still see the previous version. Once the entity of the record points to the new
+ * version, the chunks of the other versions become {@linkplain #staleChunks(Key, List, List) stale}
+ * and should be deleted.
+ */
+@Internal
+public final class RecordChunks {
+
+    /**
+     * The maximum number of the record bytes stored in a single Datastore Entity.
+     *
+     * <p>Leaves enough room for the key and the columns of the record within
+     * the Entity size limit.
+     */
+    static final int MAX_CHUNK_SIZE = 900 * 1024;
+
+    /**
+     * The kind of the child entities holding the chunks of the record bytes.
+     */
+    static final String CHUNK_KIND = "spine.storage.datastore.RecordChunk";
+
+    /**
+     * The property of the record entity, which holds the number of chunks.
+     *
+     * <p>The name is reserved, so that it never clashes with the record columns.
+     */
+    private static final String chunks = "__spine_chunks";
+
+    /**
+     * The property of the record entity, which holds the version of its chunks.
+     *
+     * <p>The property is indexed, so that the version may be
+     * {@linkplain #versionQuery(Key) queried} without reading the whole entity.
+     *
+     * <p>The name is reserved, so that it never clashes with the record columns.
+     */
+    private static final String version = "__spine_chunk_version";
+
+    /**
+     * Separates the version of a chunk from its index in the chunk key name.
+     */
+    private static final char SEPARATOR = '/';
+
+    /** Prevents the utility class instantiation. */
+    private RecordChunks() {
+    }
+
+    /**
+     * Splits the passed record entity into chunks, if it is too big.
+     *
+     * <p>If the record bytes fit into a single entity, returns a list of the passed entity.
+     * Otherwise, returns the chunks of a new version followed by the entity of the record.
+     */
+    public static ImmutableList<Entity> split(Entity entity) {
+        checkNotNull(entity);
+        return split(entity, MAX_CHUNK_SIZE);
+    }
+
+    static ImmutableList<Entity> split(Entity entity, int maxChunkSize) {
+        checkArgument(maxChunkSize > 0);
+        Blob blob = entity.getBlob(bytes);
+        int size = blob.getLength();
+        if (size <= maxChunkSize) {
+            return ImmutableList.of(entity);
+        }
+        Key key = entity.getKey();
+        String chunkVersion = UUID.randomUUID()
+                                  .toString();
+        ByteBuffer buffer = blob.asReadOnlyByteBuffer();
+        ImmutableList.Builder<Entity> result = ImmutableList.builder();
+        int chunkCount = 0;
+        while (buffer.hasRemaining()) {
+            chunkCount++;
+            int chunkSize = Math.min(maxChunkSize, buffer.remaining());
+            ByteBuffer chunkBytes = buffer.slice();
+            chunkBytes.limit(chunkSize);
+            buffer.position(buffer.position() + chunkSize);
+            Entity chunk = Entity.newBuilder(chunkKey(key, chunkVersion, chunkCount))
+                                 .set(bytes, unindexed(Blob.copyFrom(chunkBytes)))
+                                 .build();
+            result.add(chunk);
+        }
+        Entity record = Entity.newBuilder(entity)
+                              .remove(bytes)
+                              .set(chunks, LongValue.newBuilder(chunkCount)
+                                                    .setExcludeFromIndexes(true)
+                                                    .build())
+                              .set(version, chunkVersion)
+                              .build();
+        result.add(record);
+        return result.build();
+    }
+
+    /**
+     * Tells whether the passed entity is a record, which bytes are stored in chunks.
+     */
+    public static boolean isChunked(Entity entity) {
+        checkNotNull(entity);
+        return entity.contains(chunks);
+    }
+
+    /**
+     * Tells whether the passed entity is a chunk of a record.
+     */
+    public static boolean isChunk(Entity entity) {
+        checkNotNull(entity);
+        return CHUNK_KIND.equals(entity.getKey()
+                                       .getKind());
+    }
+
+    /**
+     * Returns the keys of the chunks of the passed chunked record.
+     */
+    public static ImmutableList<Key> chunkKeys(Entity entity) {
+        checkArgument(isChunked(entity), "The entity `%s` is not chunked.", entity.getKey());
+        long chunkCount = entity.getLong(chunks);
+        String chunkVersion = entity.getString(version);
+        Key key = entity.getKey();
+        ImmutableList.Builder<Key> result = ImmutableList.builder();
+        for (long index = 1; index <= chunkCount; index++) {
+            result.add(chunkKey(key, chunkVersion, index));
+        }
+        return result.build();
+    }
+
+    /**
+     * Creates a keys-only query for the chunks of all versions stored under the passed key.
+     *
+     * <p>The query is an ancestor query, so it is strongly consistent and may be run in
+     * a transaction. If the records are stored in the ancestor-child hierarchy, the query also
+     * finds the chunks of the nested records. Such chunks are never
+     * {@linkplain #staleChunks(Key, List, List) stale} for the passed key.
+     */
+    public static StructuredQuery<Key> chunksQuery(Key recordKey) {
+        checkNotNull(recordKey);
+        return Query.newKeyQueryBuilder()
+                    .setKind(CHUNK_KIND)
+                    .setFilter(hasAncestor(recordKey))
+                    .build();
+    }
+
+    /**
+     * Creates a keys-only query for all the chunks.
+     *
+     * @see #isChunkOf(Key, Kind)
+     */
+    public static StructuredQuery<Key> allChunksQuery() {
+        return Query.newKeyQueryBuilder()
+                    .setKind(CHUNK_KIND)
+                    .build();
+    }
+
+    /**
+     * Tells whether the chunk with the passed key belongs to a record of the passed kind.
+     */
+    public static boolean isChunkOf(Key chunkKey, Kind kind) {
+        checkNotNull(chunkKey);
+        checkNotNull(kind);
+        Key parent = chunkKey.getParent();
+        return parent != null && kind.value()
+                                     .equals(parent.getKind());
+    }
+
+    /**
+     * Creates a projection query for the version of the chunks of the record with
+     * the passed key.
+     *
+     * <p>The query is an ancestor query, so it is strongly consistent and may be run in
+     * a transaction. Only the chunked records have the version, so the query finds nothing
+     * if the record is not chunked, or does not exist.
+     *
+     * @see #staleChunks(Key, List, List)
+     */
+    public static StructuredQuery<ProjectionEntity> versionQuery(Key recordKey) {
+        checkNotNull(recordKey);
+        return Query.newProjectionEntityQueryBuilder()
+                    .setKind(recordKey.getKind())
+                    .setFilter(hasAncestor(recordKey))
+                    .setProjection(version)
+                    .build();
+    }
+
+    /**
+     * Creates a keys-only query for a chunked record of the passed kind.
+     *
+     * <p>Only the chunked records have the indexed version of chunks. So, ordered by
+     * the version, the query finds nothing if no record of the kind is chunked. The query
+     * is limited to a single result.
+     */
+    public static StructuredQuery<Key> chunkedRecordQuery(Kind kind) {
+        checkNotNull(kind);
+        return Query.newKeyQueryBuilder()
+                    .setKind(kind.value())
+                    .addOrderBy(asc(version))
+                    .setLimit(1)
+                    .build();
+    }
+
+    /**
+     * Selects the chunks no longer used by the passed record.
+     *
+     * @param record
+     *         the entity of the record, which is about to be written
+     * @param chunkKeys
+     *         the keys found by the {@linkplain #chunksQuery(Key) chunks query} of the record
+     * @return the keys of the chunks of the record, which versions differ from the version
+     *         of the passed entity
+     */
+    public static ImmutableList<Key> staleChunks(Entity record, List<Key> chunkKeys) {
+        checkNotNull(record);
+        checkNotNull(chunkKeys);
+        String currentVersion = isChunked(record)
+                                ? record.getString(version)
+                                : null;
+        return staleChunks(record.getKey(), chunkKeys, currentVersion);
+    }
+
+    /**
+     * Selects the chunks no longer used by the record with the passed key.
+     *
+     * @param recordKey
+     *         the key of the record
+     * @param chunkKeys
+     *         the keys found by the {@linkplain #chunksQuery(Key) chunks query} of the record
+     * @param versionResults
+     *         the results of the {@linkplain #versionQuery(Key) version query} of the record
+     * @return the keys of the chunks of the record, which versions differ from
+     *         the current version of the record
+     */
+    public static ImmutableList<Key> staleChunks(Key recordKey,
+                                                 List<Key> chunkKeys,
+                                                 List<ProjectionEntity> versionResults) {
+        checkNotNull(recordKey);
+        checkNotNull(chunkKeys);
+        checkNotNull(versionResults);
+        String currentVersion = null;
+        for (ProjectionEntity entity : versionResults) {
+            if (recordKey.equals(entity.getKey())) {
+                currentVersion = entity.getString(version);
+            }
+        }
+        return staleChunks(recordKey, chunkKeys, currentVersion);
+    }
+
+    /**
+     * Selects the chunks of the record with the passed key, which versions differ from
+     * the passed one.
+     *
+     * <p>The chunks of the nested records are never selected. If the version is
+     * {@code null}, all the chunks of the record are selected.
+     */
+    private static ImmutableList<Key> staleChunks(Key recordKey,
+                                                  List<Key> chunkKeys,
+                                                  @Nullable String currentVersion) {
+        String prefix = currentVersion + SEPARATOR;
+        return chunkKeys.stream()
+                        .filter(key -> recordKey.equals(key.getParent()))
+                        .filter(key -> currentVersion == null
+                                || !prefix.equals(versionPrefix(key)))
+                        .collect(toImmutableList());
+    }
+
+    private static @Nullable String versionPrefix(Key chunkKey) {
+        String name = chunkKey.getName();
+        if (name == null) {
+            return null;
+        }
+        int separator = name.indexOf(SEPARATOR);
+        return name.substring(0, separator + 1);
+    }
+
+    /**
+     * Assembles the chunked record from its entity and the chunks.
+     *
+     * @param entity
+     *         the entity of the record
+     * @param chunks
+     *         the chunks in the order of their {@linkplain #chunkKeys(Entity) keys}
+     * @return the entity of the record holding all its bytes
+     * @throws IllegalStateException
+     *         if some of the chunks are missing
+     */
+    public static Entity assemble(Entity entity, List<@Nullable Entity> chunks) {
+        checkNotNull(entity);
+        checkNotNull(chunks);
+        int size = 0;
+        for (@Nullable Entity chunk : chunks) {
+            if (chunk == null) {
+                throw newIllegalStateException(
+                        "A chunk of the record `%s` is missing.", entity.getKey());
+            }
+            size += chunk.getBlob(bytes)
+                         .getLength();
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        for (Entity chunk : chunks) {
+            chunk.getBlob(bytes)
+                 .copyTo(buffer);
+        }
+        buffer.flip();
+        Entity result = Entity.newBuilder(entity)
+                              .remove(RecordChunks.chunks)
+                              .remove(version)
+                              .set(bytes, unindexed(Blob.copyFrom(buffer)))
+                              .build();
+        return result;
+    }
+
+    private static Key chunkKey(Key recordKey, String chunkVersion, long index) {
+        return Key.newBuilder(recordKey, CHUNK_KIND, chunkVersion + SEPARATOR + index)
+                  .build();
+    }
+
+    private static BlobValue unindexed(Blob blob) {
+        return BlobValue.newBuilder(blob)
+                        .setExcludeFromIndexes(true)
+                        .build();
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.storage.datastore.record;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+import com.google.protobuf.Message;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.Optional;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A page of records read from a record storage, along with the token to read the next page.
+ *
+ * <p>The token is an opaque string. It stays valid after the storage is closed or the process
+ * is restarted, so the reading may be resumed later, even on another node. Reading the next
+ * page does not re-read the records of the previous pages.
+ *
+ * @param <R>
+ *         the type of records
+ * @see DsRecordStorage#readPage(io.spine.query.RecordQuery, int, String)
+ */
+public final class RecordPage<R extends Message> {
+
+    private final ImmutableList<R> records;
+    private final @Nullable String nextPageToken;
+
+    private RecordPage(ImmutableList<R> records, @Nullable String nextPageToken) {
+        this.records = records;
+        this.nextPageToken = nextPageToken;
+    }
+
+    /**
+     * Creates a new page.
+     *
+     * @param records
+     *         the records of the page
+     * @param nextPageToken
+     *         the token to read the next page, or {@code null} if this page is the last one
+     * @param <R>
+     *         the type of records
+     * @return a new page
+     */
+    public static <R extends Message>
+    RecordPage<R> of(Iterable<R> records, @Nullable String nextPageToken) {
+        checkNotNull(records);
+        return new RecordPage<>(ImmutableList.copyOf(records), nextPageToken);
+    }
+
+    /**
+     * Returns the records of this page.
+     */
+    public ImmutableList<R> records() {
+        return records;
+    }
+
+    /**
+     * Returns the token to read the next page.
+     *
+     * <p>If this page is the last one, returns {@code Optional.empty()}. The next page may turn
+     * out to be empty, if the number of the remaining records was exactly the page size.
+     */
+    public Optional<String> nextPageToken() {
+        return Optional.ofNullable(nextPageToken);
+    }
+
+    /**
+     * Tells whether there may be more records after this page.
+     */
+    public boolean hasNext() {
+        return nextPageToken != null;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("recordCount", records.size())
+                          .add("hasNext", hasNext())
+                          .toString();
+    }
+}
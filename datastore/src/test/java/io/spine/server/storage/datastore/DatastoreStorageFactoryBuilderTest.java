@@ -143,6 +143,14 @@ final class DatastoreStorageFactoryBuilderTest {
         assertThrows(NullPointerException.class, DatastoreStorageFactory.newBuilder()::build);
     }
 
+    @Test
+    @DisplayName("not accept non-positive number of concurrent queries")
+    void rejectNonPositiveQueryConcurrency() {
+        DatastoreStorageFactory.Builder builder = DatastoreStorageFactory.newBuilder();
+        assertThrows(IllegalArgumentException.class,
+                     () -> builder.enableConcurrentQueries(StgProject.class, 0));
+    }
+
     private static Datastore datastore() {
         return TestDatastores.local();
     }
@@ -27,15 +27,19 @@
 package io.spine.server.storage.datastore;
 
 import com.google.cloud.datastore.Datastore;
+import com.google.cloud.datastore.DatastoreException;
 import com.google.cloud.datastore.Entity;
 import com.google.cloud.datastore.Key;
 import com.google.cloud.datastore.StructuredQuery;
 import com.google.common.collect.ImmutableList;
 import com.google.protobuf.Any;
+import com.google.protobuf.ByteString;
 import io.spine.core.TenantId;
 import io.spine.net.EmailAddress;
 import io.spine.net.InternetDomain;
+import io.spine.server.storage.datastore.given.RecordingDatastore;
 import io.spine.server.storage.datastore.record.Entities;
+import io.spine.server.storage.datastore.record.RecordChunks;
 import io.spine.server.storage.datastore.record.RecordId;
 import io.spine.server.tenant.TenantAwareFunction0;
 import io.spine.server.tenant.TenantAwareOperation;
@@ -49,16 +53,23 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 
 import static com.google.cloud.datastore.Query.newEntityQueryBuilder;
 import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth8.assertThat;
 import static io.spine.server.storage.datastore.DatastoreWrapper.wrap;
 import static io.spine.server.storage.datastore.given.DatastoreWrapperTestEnv.NAMESPACE_HOLDER_KIND;
 import static io.spine.server.storage.datastore.given.DatastoreWrapperTestEnv.ensureNamespace;
@@ -69,6 +80,9 @@ import static io.spine.server.storage.datastore.given.TestNamespaceSuppliers.mul
 import static io.spine.server.storage.datastore.given.TestNamespaceSuppliers.singleTenant;
 import static io.spine.testing.server.storage.datastore.TestDatastoreWrapper.wrap;
 import static java.lang.String.format;
+import static java.util.Collections.frequency;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.stream.Collectors.toList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -100,6 +114,38 @@ final class DatastoreWrapperTest {
             wrapper.dropAllTables();
         }
 
+        @Test
+        @DisplayName("drop the chunks of the records of the dropped kind only")
+        void dropChunks() {
+            Kind keptKind = Kind.of("my.kept.entity");
+            Key dropped = wrapper.keyFor(GENERIC_ENTITY_KIND, RecordId.of("dropped"));
+            Key kept = wrapper.keyFor(keptKind, RecordId.of("kept"));
+            wrapper.createOrUpdate(RecordChunks.split(bigEntity(dropped)));
+            wrapper.createOrUpdate(RecordChunks.split(bigEntity(kept)));
+
+            wrapper.dropTable(GENERIC_ENTITY_KIND);
+
+            assertThat(chunksOf(dropped)).isEmpty();
+            assertThat(chunksOf(kept)).isNotEmpty();
+
+            wrapper.dropTable(keptKind);
+
+            assertThat(chunksOf(kept)).isEmpty();
+        }
+
+        private Entity bigEntity(Key key) {
+            byte[] bytes = new byte[3 * 1024 * 1024];
+            new Random().nextBytes(bytes);
+            Any record = Any.newBuilder()
+                            .setValue(ByteString.copyFrom(bytes))
+                            .build();
+            return Entities.fromMessage(record, key);
+        }
+
+        private ImmutableList<Key> chunksOf(Key key) {
+            return ImmutableList.copyOf(wrapper.read(RecordChunks.chunksQuery(key)));
+        }
+
         @SlowTest
         @Test
         @DisplayName("support bulk reads")
@@ -143,6 +189,148 @@ final class DatastoreWrapperTest {
         }
     }
 
+    @Nested
+    @DisplayName("send independent requests in parallel")
+    class InParallel {
+
+        private ExecutorService executor;
+        private TestDatastoreWrapper wrapper;
+
+        @BeforeEach
+        void setUp() {
+            executor = newFixedThreadPool(4);
+            wrapper = wrap(localDatastore(), false, ParallelExecution.using(executor, 4));
+        }
+
+        @AfterEach
+        void tearDown() {
+            wrapper.dropAllTables();
+            executor.shutdownNow();
+        }
+
+        @SlowTest
+        @Test
+        @DisplayName("storing all the chunks of a bulk write")
+        void testParallelBulkWrite() throws InterruptedException {
+            int bulkSize = 1201;
+
+            Map<Key, Entity> entities = newTestEntities(bulkSize, wrapper);
+            Collection<Entity> expectedEntities = entities.values();
+
+            wrapper.createOrUpdate(expectedEntities);
+
+            // Wait for some time to make sure the writing is complete
+            Thread.sleep(bulkSize * 5L);
+
+            ImmutableList<Key> keys = ImmutableList.copyOf(entities.keySet());
+            List<@Nullable Entity> readEntities = wrapper.lookup(keys);
+            assertThat(readEntities).containsExactlyElementsIn(expectedEntities);
+        }
+
+        @SlowTest
+        @Test
+        @DisplayName("looking up the pages of keys in the order of keys")
+        void testParallelBulkLookup() throws InterruptedException {
+            int bulkSize = 3001;
+
+            Map<Key, Entity> entities = newTestEntities(bulkSize, wrapper);
+            wrapper.createOrUpdate(entities.values());
+
+            // Wait for some time to make sure the writing is complete
+            Thread.sleep(bulkSize * 3L);
+
+            List<Key> keys = newArrayList(entities.keySet());
+            Collections.shuffle(keys);
+            keys.add(bulkSize / 2, newKey("missing-key", wrapper));
+
+            List<@Nullable Entity> readEntities = wrapper.lookup(keys);
+            List<@Nullable Entity> expected = keys.stream()
+                                                  .map(entities::get)
+                                                  .collect(toList());
+            assertThat(readEntities).containsExactlyElementsIn(expected)
+                                    .inOrder();
+        }
+
+        @SlowTest
+        @Test
+        @DisplayName("reading the pages of query results ahead")
+        void testPrefetchingReadAll() throws InterruptedException {
+            int bulkSize = 1001;
+
+            Map<Key, Entity> entities = newTestEntities(bulkSize, wrapper);
+            Collection<Entity> expectedEntities = entities.values();
+            wrapper.createOrUpdate(expectedEntities);
+
+            // Wait for some time to make sure the writing is complete
+            Thread.sleep(bulkSize * 3L);
+
+            StructuredQuery<Entity> query = newEntityQueryBuilder()
+                    .setKind(GENERIC_ENTITY_KIND.value())
+                    .build();
+            List<Entity> readEntities = newArrayList(wrapper.readAll(query, 100, 3));
+            assertThat(readEntities).containsExactlyElementsIn(expectedEntities);
+        }
+
+        @SlowTest
+        @Test
+        @DisplayName("reading no more than the prefetched pages ahead, one at a time")
+        void testPrefetchingReadAllDepth() throws InterruptedException {
+            int bulkSize = 1001;
+            int prefetchPages = 3;
+
+            Map<Key, Entity> entities = newTestEntities(bulkSize, wrapper);
+            wrapper.createOrUpdate(entities.values());
+
+            // Wait for some time to make sure the writing is complete
+            Thread.sleep(bulkSize * 3L);
+
+            StructuredQuery<Entity> query = newEntityQueryBuilder()
+                    .setKind(GENERIC_ENTITY_KIND.value())
+                    .build();
+            List<Entity> expected = newArrayList(wrapper.readAll(query));
+            RecordingDatastore recording = RecordingDatastore.wrap(localDatastore());
+            DatastoreWrapper prefetching =
+                    wrap(recording.datastore(), false, ParallelExecution.using(executor, 4));
+            recording.setLatency(Duration.ofMillis(20));
+
+            Iterator<Entity> results = prefetching.readAll(query, 100, prefetchPages);
+            List<Entity> readEntities = newArrayList(results.next());
+
+            // Wait for some time to make sure the next pages are read ahead
+            Thread.sleep(500);
+            int pagesRead = frequency(recording.calls(), "Datastore.run");
+            readEntities.addAll(newArrayList(results));
+
+            assertThat(readEntities).containsExactlyElementsIn(expected)
+                                    .inOrder();
+            assertThat(pagesRead).isEqualTo(1 + prefetchPages);
+            assertThat(recording.maxConcurrentCalls()).isEqualTo(1);
+        }
+
+        @SlowTest
+        @Test
+        @DisplayName("writing and reading asynchronously")
+        void testAsyncReadWrite() throws InterruptedException {
+            int bulkSize = 10;
+            Map<Key, Entity> entities = newTestEntities(bulkSize, wrapper);
+            Collection<Entity> expectedEntities = entities.values();
+
+            wrapper.createOrUpdateAsync(expectedEntities)
+                   .join();
+
+            // Wait for some time to make sure the writing is complete
+            Thread.sleep(bulkSize * 5L);
+
+            ImmutableList<Key> keys = ImmutableList.copyOf(entities.keySet());
+            CompletableFuture<List<@Nullable Entity>> lookup = wrapper.lookupAsync(keys);
+            Key firstKey = keys.get(0);
+            CompletableFuture<Optional<Entity>> single = wrapper.readAsync(firstKey);
+
+            assertThat(lookup.join()).containsExactlyElementsIn(expectedEntities);
+            assertThat(single.join()).hasValue(entities.get(firstKey));
+        }
+    }
+
     /**
      * The acceptance test for the remote datastore.
      *
@@ -184,6 +372,35 @@ final class DatastoreWrapperTest {
             assertEquals(entities.size(), readEntities.size());
             assertTrue(expectedEntities.containsAll(readEntities));
         }
+
+        @SlowTest
+        @Test
+        @DisplayName("split a query into the ranges of keys")
+        void testPartition() {
+            assumeTrue(runsOnCi());
+
+            TestDatastoreWrapper singleTenant = wrap(remoteDatastore(), false);
+            try {
+                int entityCount = 50;
+                Map<Key, Entity> entities = newTestEntities(entityCount, singleTenant);
+                singleTenant.createOrUpdate(entities.values());
+
+                StructuredQuery<Entity> query = newEntityQueryBuilder()
+                        .setKind(GENERIC_ENTITY_KIND.value())
+                        .build();
+                ImmutableList<StructuredQuery<Entity>> ranges =
+                        singleTenant.partition(query, 4);
+                List<Entity> readEntities = newArrayList();
+                for (StructuredQuery<Entity> range : ranges) {
+                    readEntities.addAll(newArrayList(singleTenant.readAll(range)));
+                }
+
+                assertThat(ranges.size()).isGreaterThan(1);
+                assertThat(readEntities).containsExactlyElementsIn(entities.values());
+            } finally {
+                singleTenant.dropAllTables();
+            }
+        }
     }
 
     @Nested
@@ -260,6 +477,49 @@ final class DatastoreWrapperTest {
                     .containsExactlyElementsIn(entities.values());
         }
 
+        @SlowTest
+        @Test
+        @DisplayName("with eventual consistency")
+        void eventuallyConsistent() throws InterruptedException {
+            int bulkSize = 3;
+
+            Map<Key, Entity> entities = createAndStoreTestEntities(bulkSize);
+
+            // Wait for some time to make sure the writing is complete
+            Thread.sleep(bulkSize * 5L);
+
+            DatastoreMedium medium = wrapper.withEventualConsistency();
+            List<Key> presentKeys = newArrayList(entities.keySet());
+            Key missingKey = newKey("missing-key", wrapper);
+            List<Key> queryKeys = ImmutableList.of(missingKey, presentKeys.get(0));
+
+            assertThat(medium.lookup(queryKeys))
+                    .containsExactly(null, entities.get(presentKeys.get(0)))
+                    .inOrder();
+            assertThat(medium.read(presentKeys.get(1)))
+                    .hasValue(entities.get(presentKeys.get(1)));
+            assertThat(medium.read(missingKey))
+                    .isEmpty();
+        }
+
+        @Test
+        @DisplayName("in a read-only transaction")
+        void readOnlyTransaction() {
+            Map<Key, Entity> entities = createAndStoreTestEntities(2);
+            List<Key> keys = newArrayList(entities.keySet());
+            Key key = keys.get(0);
+
+            try (TransactionWrapper tx = wrapper.newReadOnlyTransaction()) {
+                assertThat(tx.read(key))
+                        .hasValue(entities.get(key));
+                tx.commit();
+            }
+            try (TransactionWrapper tx = wrapper.newReadOnlyTransaction()) {
+                tx.createOrUpdate(entities.get(keys.get(1)));
+                assertThrows(DatastoreException.class, tx::commit);
+            }
+        }
+
         private Map<Key, Entity> createAndStoreTestEntities(int bulkSize) {
             Map<Key, Entity> entities = newTestEntities(bulkSize, wrapper);
             Collection<Entity> expectedEntities = entities.values();
@@ -352,6 +612,45 @@ final class DatastoreWrapperTest {
         }.execute();
     }
 
+    @Test
+    @DisplayName("create the same keys as its key factories, per tenant")
+    void testKeyFor() {
+        DatastoreWrapper wrapper = wrap(localDatastore(), multitenant());
+        String firstNamespace = "Vfirst-key-tenant";
+        String secondNamespace = "Vsecond-key-tenant";
+        Datastore datastore = wrapper.datastore();
+        ensureNamespace(firstNamespace, datastore);
+        ensureNamespace(secondNamespace, datastore);
+        TenantId first = TenantId.newBuilder()
+                                 .setValue("first-key-tenant")
+                                 .vBuild();
+        TenantId second = TenantId.newBuilder()
+                                  .setValue("second-key-tenant")
+                                  .vBuild();
+        RecordId recordId = RecordId.of("same-record");
+        Key firstKey = checkKeyFor(recordId, first, wrapper);
+        Key secondKey = checkKeyFor(recordId, second, wrapper);
+
+        assertThat(firstKey.getNamespace()).isEqualTo(firstNamespace);
+        assertThat(secondKey.getNamespace()).isEqualTo(secondNamespace);
+        assertThat(checkKeyFor(recordId, first, wrapper)).isEqualTo(firstKey);
+    }
+
+    private static Key checkKeyFor(RecordId id, TenantId tenantId, DatastoreWrapper wrapper) {
+        return new TenantAwareFunction0<Key>(tenantId) {
+            @Override
+            public Key apply() {
+                Key key = wrapper.keyFor(GENERIC_ENTITY_KIND, id);
+                Key expected = wrapper.keyFactory(GENERIC_ENTITY_KIND)
+                                      .newKey(id.value());
+                assertThat(key).isEqualTo(expected);
+                assertThat(key.getName()).isEqualTo(id.value());
+                assertThat(key.getKind()).isEqualTo(GENERIC_ENTITY_KIND.value());
+                return key;
+            }
+        }.execute();
+    }
+
     @Test
     @DisplayName("produce lazy iterator on query read")
     void testLazyIterator() {
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.storage.datastore;
+
+import com.google.cloud.datastore.Entity;
+import com.google.cloud.datastore.EntityQuery;
+import com.google.cloud.datastore.Key;
+import com.google.cloud.datastore.PathElement;
+import com.google.cloud.datastore.Query;
+import com.google.cloud.datastore.StructuredQuery;
+import com.google.common.collect.ImmutableList;
+import io.spine.testing.UtilityClassTest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static com.google.common.truth.Truth.assertThat;
+import static io.spine.server.storage.datastore.KeyRanges.KEY_ORDER;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.IntStream.range;
+
+@DisplayName("`KeyRanges` should")
+final class KeyRangesTest extends UtilityClassTest<KeyRanges> {
+
+    private static final String PROJECT = "test-project";
+    private static final String KIND = "TestKind";
+
+    KeyRangesTest() {
+        super(KeyRanges.class);
+    }
+
+    @Test
+    @DisplayName("order keys as Datastore does")
+    void orderKeys() {
+        Key id = Key.newBuilder(PROJECT, KIND, 42L)
+                    .build();
+        Key name = key("a");
+        Key laterName = key("b");
+        Key child = Key.newBuilder(PROJECT, "Child", "a")
+                       .addAncestor(PathElement.of(KIND, "a"))
+                       .build();
+        List<Key> keys = new ArrayList<>(ImmutableList.of(child, laterName, name, id));
+        keys.sort(KEY_ORDER);
+        assertThat(keys).containsExactly(id, name, child, laterName)
+                        .inOrder();
+    }
+
+    @Test
+    @DisplayName("compare names as UTF-8 bytes")
+    void compareUtf8() {
+        Key bmp = key("\uFFFD");
+        Key supplementary = key("\uD83D\uDE00");
+        assertThat(KEY_ORDER.compare(bmp, supplementary)).isLessThan(0);
+    }
+
+    @Test
+    @DisplayName("choose sorted distinct boundaries from the sample")
+    void chooseBoundaries() {
+        List<Key> sample = range(0, 90).mapToObj(i -> key(String.format("%03d", i)))
+                                       .collect(toList());
+        Collections.shuffle(sample, new Random(42));
+
+        ImmutableList<Key> boundaries = KeyRanges.boundaries(sample, 3);
+
+        assertThat(boundaries).containsExactly(key("030"), key("060"))
+                              .inOrder();
+    }
+
+    @Test
+    @DisplayName("return fewer boundaries if there are few samples")
+    void fewSamples() {
+        ImmutableList<Key> sample = ImmutableList.of(key("a"));
+        assertThat(KeyRanges.boundaries(sample, 4)).containsExactly(key("a"));
+        assertThat(KeyRanges.boundaries(ImmutableList.of(), 4)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("split the query into adjacent ranges")
+    void splitIntoRanges() {
+        EntityQuery query = Query.newEntityQueryBuilder()
+                                 .setKind(KIND)
+                                 .build();
+        assertThat(KeyRanges.canSplit(query)).isTrue();
+
+        ImmutableList<StructuredQuery<Entity>> ranges =
+                KeyRanges.split(query, ImmutableList.of(key("b"), key("d")));
+
+        assertThat(ranges).hasSize(3);
+        ranges.forEach(range -> assertThat(range.getFilter()).isNotNull());
+        assertThat(KeyRanges.split(query, ImmutableList.of())).containsExactly(query);
+    }
+
+    @Test
+    @DisplayName("not split filtered or limited queries")
+    void notSplitRestricted() {
+        EntityQuery limited = Query.newEntityQueryBuilder()
+                                   .setKind(KIND)
+                                   .setLimit(10)
+                                   .build();
+        assertThat(KeyRanges.canSplit(limited)).isFalse();
+    }
+
+    private static Key key(String name) {
+        return Key.newBuilder(PROJECT, KIND, name)
+                  .build();
+    }
+}
@@ -0,0 +1,293 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.storage.datastore;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.util.concurrent.Uninterruptibles.awaitUninterruptibly;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.IntStream.range;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("`ParallelExecution` should")
+final class ParallelExecutionTest {
+
+    private static final int MAX_CONCURRENCY = 3;
+
+    @Test
+    @DisplayName("not accept non-positive concurrency")
+    void rejectNonPositiveConcurrency() {
+        ExecutorService executor = newFixedThreadPool(1);
+        try {
+            assertThrows(IllegalArgumentException.class,
+                         () -> ParallelExecution.using(executor, 0));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Nested
+    @DisplayName("in sequential mode")
+    class Sequential {
+
+        @Test
+        @DisplayName("run tasks in the caller thread")
+        void runInCallerThread() {
+            Thread caller = Thread.currentThread();
+            ImmutableList<Thread> threads = ParallelExecution.sequential()
+                                                             .map(items(5),
+                                                                  i -> Thread.currentThread());
+            assertThat(threads).containsExactly(caller, caller, caller, caller, caller);
+        }
+
+        @Test
+        @DisplayName("propagate the failure as-is")
+        void propagateFailure() {
+            IllegalStateException failure = new IllegalStateException("Sequential failure.");
+            IllegalStateException thrown = assertThrows(
+                    IllegalStateException.class,
+                    () -> ParallelExecution.sequential()
+                                           .forEach(items(3), i -> {
+                                               throw failure;
+                                           })
+            );
+            assertThat(thrown).isSameInstanceAs(failure);
+        }
+
+        @Test
+        @DisplayName("complete async tasks before returning")
+        void completeAsyncImmediately() {
+            Thread caller = Thread.currentThread();
+            CompletableFuture<Thread> future = ParallelExecution.sequential()
+                                                                .supply(Thread::currentThread);
+            assertThat(future.isDone()).isTrue();
+            assertThat(future.join()).isSameInstanceAs(caller);
+        }
+
+        @Test
+        @DisplayName("return a failed future for a failed async task")
+        void failAsync() {
+            IllegalStateException failure = new IllegalStateException("Async failure.");
+            CompletableFuture<Object> future = ParallelExecution.sequential()
+                                                                .supply(() -> {
+                                                                    throw failure;
+                                                                });
+            assertThat(future.isCompletedExceptionally()).isTrue();
+            CompletionException thrown = assertThrows(CompletionException.class, future::join);
+            assertThat(thrown).hasCauseThat()
+                              .isSameInstanceAs(failure);
+        }
+    }
+
+    @Nested
+    @DisplayName("in parallel mode")
+    class Parallel {
+
+        private ExecutorService executor;
+        private ParallelExecution execution;
+
+        @BeforeEach
+        void setUp() {
+            executor = newFixedThreadPool(MAX_CONCURRENCY * 2);
+            execution = ParallelExecution.using(executor, MAX_CONCURRENCY);
+        }
+
+        @AfterEach
+        void tearDown() {
+            executor.shutdownNow();
+        }
+
+        @Test
+        @DisplayName("return results in the order of items")
+        void preserveOrder() {
+            List<Integer> items = items(100);
+            ImmutableList<Integer> results = execution.map(items, i -> i * 2);
+            List<Integer> expected = items.stream()
+                                          .map(i -> i * 2)
+                                          .collect(toList());
+            assertThat(results).containsExactlyElementsIn(expected)
+                               .inOrder();
+        }
+
+        @Test
+        @DisplayName("not exceed the maximum number of concurrent tasks")
+        void boundConcurrency() {
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger maxRunning = new AtomicInteger();
+            execution.forEach(items(30), i -> {
+                int current = running.incrementAndGet();
+                maxRunning.accumulateAndGet(current, Math::max);
+                sleep();
+                running.decrementAndGet();
+            });
+            assertThat(maxRunning.get()).isAtMost(MAX_CONCURRENCY);
+        }
+
+        @Test
+        @DisplayName("process all items and report all failures")
+        void reportAllFailures() {
+            AtomicInteger processed = new AtomicInteger();
+            ParallelExecutionException thrown = assertThrows(
+                    ParallelExecutionException.class,
+                    () -> execution.forEach(items(10), i -> {
+                        processed.incrementAndGet();
+                        if (i % 2 == 0) {
+                            throw new IllegalStateException("Failed item " + i);
+                        }
+                    })
+            );
+            assertThat(processed.get()).isEqualTo(10);
+            assertThat(thrown.failures()).hasSize(5);
+            assertThat(thrown.getCause()).isInstanceOf(IllegalStateException.class);
+        }
+
+        @Test
+        @DisplayName("narrow down the maximum number of concurrent tasks")
+        void narrowConcurrency() {
+            ParallelExecution limited = execution.limitedTo(2);
+            assertThat(limited.maxConcurrency()).isEqualTo(2);
+            assertThat(execution.limitedTo(1)
+                                .isSequential()).isTrue();
+            assertThat(ParallelExecution.sequential()
+                                        .limitedTo(MAX_CONCURRENCY)
+                                        .isSequential()).isTrue();
+        }
+
+        @Test
+        @DisplayName("run async tasks via the executor")
+        void runAsyncInExecutor() {
+            Thread caller = Thread.currentThread();
+            Thread worker = execution.supply(Thread::currentThread)
+                                     .join();
+            assertThat(worker).isNotSameInstanceAs(caller);
+        }
+
+        @Test
+        @DisplayName("process all items even if the executor is busy")
+        void proceedWithBusyExecutor() {
+            ExecutorService single = newFixedThreadPool(1);
+            CountDownLatch release = new CountDownLatch(1);
+            try {
+                single.execute(() -> awaitUninterruptibly(release));
+                ParallelExecution busy = ParallelExecution.using(single, MAX_CONCURRENCY);
+                ImmutableList<Integer> results = busy.map(items(10), i -> i + 1);
+                assertThat(results).hasSize(10);
+            } finally {
+                release.countDown();
+                single.shutdownNow();
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("with an executor sending one request at a time")
+    class OneAtATime {
+
+        private ExecutorService executor;
+        private ParallelExecution execution;
+
+        @BeforeEach
+        void setUp() {
+            executor = newFixedThreadPool(MAX_CONCURRENCY);
+            execution = ParallelExecution.using(executor, 1);
+        }
+
+        @AfterEach
+        void tearDown() {
+            executor.shutdownNow();
+        }
+
+        @Test
+        @DisplayName("not be sequential")
+        void notSequential() {
+            assertThat(execution.isSequential()).isFalse();
+            assertThat(execution.maxConcurrency()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("run async tasks via the executor")
+        void runAsyncInExecutor() {
+            Thread caller = Thread.currentThread();
+            Thread worker = execution.supply(Thread::currentThread)
+                                     .join();
+            assertThat(worker).isNotSameInstanceAs(caller);
+        }
+
+        @Test
+        @DisplayName("run tasks via the executor one after another")
+        void runInExecutor() {
+            Thread caller = Thread.currentThread();
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger maxRunning = new AtomicInteger();
+            ImmutableList<Thread> threads = execution.map(items(5), i -> {
+                int current = running.incrementAndGet();
+                maxRunning.accumulateAndGet(current, Math::max);
+                sleep();
+                running.decrementAndGet();
+                return Thread.currentThread();
+            });
+            assertThat(threads).hasSize(5);
+            assertThat(threads).doesNotContain(caller);
+            assertThat(maxRunning.get()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("run a single task via the executor")
+        void runSingleInExecutor() {
+            Thread caller = Thread.currentThread();
+            ImmutableList<Thread> threads = execution.map(items(1), i -> Thread.currentThread());
+            assertThat(threads).doesNotContain(caller);
+        }
+    }
+
+    private static List<Integer> items(int count) {
+        return range(0, count).boxed()
+                              .collect(toList());
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(5);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.storage.datastore;
+
+import com.google.cloud.datastore.Blob;
+import com.google.cloud.datastore.Entity;
+import com.google.cloud.datastore.Key;
+import com.google.common.collect.ImmutableList;
+import io.spine.testing.UtilityClassTest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+import static io.spine.server.storage.datastore.WriteBatches.MAX_BYTES_PER_WRITE_REQUEST;
+import static io.spine.server.storage.datastore.WriteBatches.MAX_ENTITIES_PER_WRITE_REQUEST;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.IntStream.range;
+
+@DisplayName("`WriteBatches` should")
+final class WriteBatchesTest extends UtilityClassTest<WriteBatches> {
+
+    private static final int ONE_MIB = 1024 * 1024;
+
+    WriteBatchesTest() {
+        super(WriteBatches.class);
+    }
+
+    @Test
+    @DisplayName("split entities by count")
+    void splitByCount() {
+        List<Entity> entities = entities(MAX_ENTITIES_PER_WRITE_REQUEST * 2 + 1, 0);
+        ImmutableList<ImmutableList<Entity>> batches = WriteBatches.ofEntities(entities);
+        assertThat(batches).hasSize(3);
+        assertThat(batches.get(0)).hasSize(MAX_ENTITIES_PER_WRITE_REQUEST);
+        assertThat(batches.get(1)).hasSize(MAX_ENTITIES_PER_WRITE_REQUEST);
+        assertThat(batches.get(2)).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("not produce an empty batch for a multiple of the count limit")
+    void noEmptyBatches() {
+        List<Entity> entities = entities(MAX_ENTITIES_PER_WRITE_REQUEST * 2, 0);
+        ImmutableList<ImmutableList<Entity>> batches = WriteBatches.ofEntities(entities);
+        assertThat(batches).hasSize(2);
+    }
+
+    @Test
+    @DisplayName("split entities by their size")
+    void splitBySize() {
+        int entityCount = 20;
+        List<Entity> entities = entities(entityCount, ONE_MIB);
+        ImmutableList<ImmutableList<Entity>> batches = WriteBatches.ofEntities(entities);
+        long maxPerBatch = MAX_BYTES_PER_WRITE_REQUEST / ONE_MIB;
+        assertThat(batches.size()).isGreaterThan(1);
+        for (ImmutableList<Entity> batch : batches) {
+            assertThat((long) batch.size()).isAtMost(maxPerBatch);
+        }
+        List<Entity> flattened = batches.stream()
+                                        .flatMap(List::stream)
+                                        .collect(toList());
+        assertThat(flattened).containsExactlyElementsIn(entities)
+                             .inOrder();
+    }
+
+    @Test
+    @DisplayName("put an oversized entity into a batch of its own")
+    void isolateOversized() {
+        Entity small = entity(0, 16);
+        Entity huge = entity(1, (int) MAX_BYTES_PER_WRITE_REQUEST);
+        Entity another = entity(2, 16);
+        ImmutableList<ImmutableList<Entity>> batches =
+                WriteBatches.ofEntities(ImmutableList.of(small, huge, another));
+        assertThat(batches).containsExactly(ImmutableList.of(small),
+                                            ImmutableList.of(huge),
+                                            ImmutableList.of(another))
+                           .inOrder();
+    }
+
+    @Test
+    @DisplayName("split keys by count")
+    void splitKeys() {
+        List<Key> keys = range(0, MAX_ENTITIES_PER_WRITE_REQUEST + 1)
+                .mapToObj(WriteBatchesTest::key)
+                .collect(toList());
+        ImmutableList<ImmutableList<Key>> batches = WriteBatches.ofKeys(keys);
+        assertThat(batches).hasSize(2);
+    }
+
+    @Test
+    @DisplayName("tell if entities fit a single request")
+    void fitSingleRequest() {
+        assertThat(WriteBatches.fitSingleRequest(entities(3, ONE_MIB))).isTrue();
+        assertThat(WriteBatches.fitSingleRequest(entities(MAX_ENTITIES_PER_WRITE_REQUEST + 1, 0)))
+                .isFalse();
+        assertThat(WriteBatches.fitSingleRequest(entities(10, ONE_MIB))).isFalse();
+    }
+
+    private static List<Entity> entities(int count, int blobSize) {
+        return range(0, count)
+                .mapToObj(index -> entity(index, blobSize))
+                .collect(toList());
+    }
+
+    private static Entity entity(int index, int blobSize) {
+        return Entity.newBuilder(key(index))
+                     .set("bytes", Blob.copyFrom(new byte[blobSize]))
+                     .build();
+    }
+
+    private static Key key(int index) {
+        return Key.newBuilder("test-project", "test.batch.Kind", "entity-" + index)
+                  .build();
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package io.spine.server.storage.datastore.given;
+
+import com.google.cloud.datastore.Datastore;
+import com.google.cloud.datastore.Transaction;
+import com.google.common.collect.ImmutableList;
+import com.google.datastore.v1.TransactionOptions;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.util.concurrent.Uninterruptibles.sleepUninterruptibly;
+import static java.util.Collections.synchronizedList;
+
+/**
+ * A {@link Datastore} which records the calls made to it and to the transactions it starts.
+ *
+ * <p>The calls are recorded as the simple name of the called interface and the method name,
+ * e.g. {@code "Datastore.run"} or {@code "Transaction.run"}.
+ *
+ * <p>The calls to the {@code Datastore} may be {@linkplain #setLatency(Duration) slowed down},
+ * so that the concurrent calls overlap for sure. The maximum number of such calls in progress
+ * at the same time is tracked.
+ */
+public final class RecordingDatastore {
+
+    private final Datastore delegate;
+    private final Datastore datastore;
+    private final List<String> calls = synchronizedList(new ArrayList<>());
+    private final List<TransactionOptions> transactions = synchronizedList(new ArrayList<>());
+    private final AtomicInteger callsInProgress = new AtomicInteger();
+    private final AtomicInteger maxCallsInProgress = new AtomicInteger();
+    private volatile Duration latency = Duration.ZERO;
+
+    private RecordingDatastore(Datastore delegate) {
+        this.delegate = delegate;
+        this.datastore = proxy(Datastore.class, delegate, this::onDatastoreCall);
+    }
+
+    /**
+     * Creates a new recording view of the passed {@code Datastore}.
+     */
+    public static RecordingDatastore wrap(Datastore datastore) {
+        checkNotNull(datastore);
+        return new RecordingDatastore(datastore);
+    }
+
+    /**
+     * Returns the {@code Datastore}, calls to which are recorded.
+     */
+    public Datastore datastore() {
+        return datastore;
+    }
+
+    /**
+     * Returns the calls recorded since the last {@linkplain #reset() reset}.
+     */
+    public ImmutableList<String> calls() {
+        synchronized (calls) {
+            return ImmutableList.copyOf(calls);
+        }
+    }
+
+    /**
+     * Returns the options of the transactions started since the last
+     * {@linkplain #reset() reset}.
+     *
+     * <p>The transactions started with no options have
+     * the {@linkplain TransactionOptions#getDefaultInstance() default} options.
+     */
+    public ImmutableList<TransactionOptions> transactions() {
+        synchronized (transactions) {
+            return ImmutableList.copyOf(transactions);
+        }
+    }
+
+    /**
+     * Returns the maximum number of the calls to the {@code Datastore} which were in progress
+     * at the same time since the last {@linkplain #reset() reset}.
+     */
+    public int maxConcurrentCalls() {
+        return maxCallsInProgress.get();
+    }
+
+    /**
+     * Makes each call to the {@code Datastore} take at least the passed time longer.
+     */
+    public void setLatency(Duration latency) {
+        this.latency = checkNotNull(latency);
+    }
+
+    /**
+     * Forgets all the recorded calls and transactions.
+     */
+    public void reset() {
+        calls.clear();
+        transactions.clear();
+        maxCallsInProgress.set(0);
+    }
+
+    private Object onDatastoreCall(Method method, Object[] args) throws Throwable {
+        calls.add("Datastore." + method.getName());
+        int inProgress = callsInProgress.incrementAndGet();
+        maxCallsInProgress.accumulateAndGet(inProgress, Math::max);
+        Object result;
+        try {
+            sleepUninterruptibly(latency);
+            result = invoke(method, delegate, args);
+        } finally {
+            callsInProgress.decrementAndGet();
+        }
+        if (result instanceof Transaction) {
+            TransactionOptions options = args != null && args.length == 1
+                                                 && args[0] instanceof TransactionOptions
+                                         ? (TransactionOptions) args[0]
+                                         : TransactionOptions.getDefaultInstance();
+            transactions.add(options);
+            Transaction tx = (Transaction) result;
+            return proxy(Transaction.class, tx, (txMethod, txArgs) -> {
+                calls.add("Transaction." + txMethod.getName());
+                return invoke(txMethod, tx, txArgs);
+            });
+        }
+        return result;
+    }
+
+    private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static <T> T proxy(Class<T> type, T target, Call call) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return invoke(method, target, args);
+            }
+            return call.handle(method, args);
+        };
+        Object result = Proxy.newProxyInstance(type.getClassLoader(),
+                                               new Class<?>[]{type},
+                                               handler);
+        return type.cast(result);
+    }
+
+    /**
+     * Handles a call to a proxied interface.
+     */
+    @FunctionalInterface
+    private interface Call {
+
+        Object handle(Method method, Object[] args) throws Throwable;
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package io.spine.server.storage.datastore.query;
+
+import com.google.cloud.datastore.Entity;
+import com.google.cloud.datastore.Key;
+import io.spine.client.ArchivedColumn;
+import io.spine.client.DeletedColumn;
+import io.spine.server.storage.datastore.config.DsColumnMapping;
+import io.spine.test.storage.StgProject;
+import io.spine.test.storage.StgProjectId;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+import static io.spine.test.storage.StgProject.Column.idString;
+
+@DisplayName("`ColumnPredicate` should")
+final class ColumnPredicateTest {
+
+    private static final String ID_STRING = idString().name()
+                                                      .value();
+    private static final String ARCHIVED = ArchivedColumn.instance()
+                                                         .toString();
+    private static final String DELETED = DeletedColumn.instance()
+                                                       .toString();
+
+    private final FilterAdapter adapter = FilterAdapter.of(new DsColumnMapping());
+
+    @Test
+    @DisplayName("match the entities satisfying all the conditions joined by `AND`")
+    void matchAll() {
+        ColumnPredicate<StgProjectId, StgProject> predicate = predicate(
+                StgProject.query()
+                          .idString().isGreaterThan("b")
+                          .where(ArchivedColumn.is(), true)
+                          .build()
+        );
+
+        assertThat(predicate.test(entity("c", true, false))).isTrue();
+        assertThat(predicate.test(entity("c", false, false))).isFalse();
+        assertThat(predicate.test(entity("a", true, false))).isFalse();
+    }
+
+    @Test
+    @DisplayName("match the entities satisfying any of the groups joined by `OR`")
+    void matchAny() {
+        ColumnPredicate<StgProjectId, StgProject> predicate = predicate(eitherQuery());
+
+        assertThat(predicate.test(entity("n", true, false))).isTrue();
+        assertThat(predicate.test(entity("b", false, true))).isTrue();
+        assertThat(predicate.test(entity("n", false, true))).isFalse();
+        assertThat(predicate.test(entity("f", true, true))).isFalse();
+    }
+
+    @Test
+    @DisplayName("match any entity if there are no conditions")
+    void matchEmpty() {
+        ColumnPredicate<StgProjectId, StgProject> predicate = predicate(
+                StgProject.query()
+                          .build()
+        );
+
+        assertThat(predicate.test(entity("a", false, false))).isTrue();
+    }
+
+    @Test
+    @DisplayName("not match the `null` values of the columns")
+    void notMatchNull() {
+        ColumnPredicate<StgProjectId, StgProject> predicate = predicate(eitherQuery());
+        Entity nullId = Entity.newBuilder(key())
+                              .setNull(ID_STRING)
+                              .set(ARCHIVED, true)
+                              .set(DELETED, true)
+                              .build();
+        Entity nullArchived = Entity.newBuilder(key())
+                                    .set(ID_STRING, "n")
+                                    .setNull(ARCHIVED)
+                                    .set(DELETED, false)
+                                    .build();
+
+        assertThat(predicate.test(nullId)).isFalse();
+        assertThat(predicate.test(nullArchived)).isFalse();
+    }
+
+    @Test
+    @DisplayName("not match the entities without the queried columns")
+    void notMatchUnknownColumns() {
+        ColumnPredicate<StgProjectId, StgProject> predicate = predicate(eitherQuery());
+        Entity noArchived = Entity.newBuilder(key())
+                                  .set(ID_STRING, "n")
+                                  .build();
+        Entity onlyDeleted = Entity.newBuilder(key())
+                                   .set(ID_STRING, "b")
+                                   .set(DELETED, true)
+                                   .build();
+
+        assertThat(predicate.test(noArchived)).isFalse();
+        assertThat(predicate.test(onlyDeleted)).isTrue();
+    }
+
+    @Test
+    @DisplayName("not match `null` entities")
+    void notMatchNullEntity() {
+        ColumnPredicate<StgProjectId, StgProject> predicate = predicate(eitherQuery());
+
+        assertThat(predicate.test(null)).isFalse();
+    }
+
+    /**
+     * Creates a query for the projects matching
+     * {@code (id_string > "m" AND archived) OR (id_string < "c" AND deleted)}.
+     */
+    private static StgProject.Query eitherQuery() {
+        return StgProject.query()
+                         .either(project -> project.idString().isGreaterThan("m")
+                                                   .where(ArchivedColumn.is(), true),
+                                 project -> project.idString().isLessThan("c")
+                                                   .where(DeletedColumn.is(), true))
+                         .build();
+    }
+
+    private ColumnPredicate<StgProjectId, StgProject> predicate(StgProject.Query query) {
+        return new ColumnPredicate<>(query.subject(), adapter);
+    }
+
+    private static Entity entity(String idString, boolean archived, boolean deleted) {
+        return Entity.newBuilder(key())
+                     .set(ID_STRING, idString)
+                     .set(ARCHIVED, archived)
+                     .set(DELETED, deleted)
+                     .build();
+    }
+
+    private static Key key() {
+        return Key.newBuilder("test-project", "spine.test.Project", "project")
+                  .build();
+    }
+}
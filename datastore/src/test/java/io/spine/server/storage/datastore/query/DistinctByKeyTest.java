@@ -0,0 +1,83 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.storage.datastore.query;
+
+import com.google.cloud.datastore.Entity;
+import com.google.cloud.datastore.Key;
+import com.google.common.collect.ImmutableList;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.truth.Truth.assertThat;
+
+@DisplayName("`DistinctByKey` should")
+final class DistinctByKeyTest {
+
+    @Test
+    @DisplayName("pass only the first entity per key")
+    void passFirstPerKey() {
+        Entity first = entity("a", "first");
+        Entity other = entity("b", "other");
+        Entity sameKey = entity("a", "second");
+        ImmutableList<Entity> distinct = ImmutableList.of(first, other, sameKey, first)
+                                                      .stream()
+                                                      .filter(new DistinctByKey())
+                                                      .collect(toImmutableList());
+        assertThat(distinct).containsExactly(first, other)
+                            .inOrder();
+    }
+
+    @Test
+    @DisplayName("not compare entity properties")
+    void ignoreProperties() {
+        DistinctByKey filter = new DistinctByKey();
+        assertThat(filter.apply(entity("a", "first"))).isTrue();
+        assertThat(filter.apply(entity("a", "second"))).isFalse();
+        assertThat(filter.apply(entity("b", "second"))).isTrue();
+    }
+
+    @Test
+    @DisplayName("pass only the first occurrence of a key")
+    void passFirstKey() {
+        DistinctByKey filter = new DistinctByKey();
+        Key key = entity("a", "first").getKey();
+        Key other = entity("b", "other").getKey();
+        assertThat(filter.isFirst(key)).isTrue();
+        assertThat(filter.isFirst(other)).isTrue();
+        assertThat(filter.isFirst(key)).isFalse();
+        assertThat(filter.apply(entity("b", "second"))).isFalse();
+    }
+
+    private static Entity entity(String name, String value) {
+        Key key = Key.newBuilder("test-project", "TestKind", name)
+                     .build();
+        return Entity.newBuilder(key)
+                     .set("value", value)
+                     .build();
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.storage.datastore.query;
+
+import com.google.cloud.datastore.StructuredQuery;
+import io.spine.client.ArchivedColumn;
+import io.spine.query.QueryPredicate;
+import io.spine.server.storage.datastore.config.DsColumnMapping;
+import io.spine.test.storage.StgProject;
+import io.spine.testing.UtilityClassTest;
+import io.spine.type.TypeUrl;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+
+import static com.google.common.truth.Truth.assertThat;
+import static io.spine.server.storage.datastore.query.DsFilters.fromPredicate;
+
+@DisplayName("`QueryPlans` should")
+final class QueryPlansTest extends UtilityClassTest<QueryPlans> {
+
+    private static final TypeUrl PROJECT = TypeUrl.of(StgProject.class);
+
+    private final FilterAdapter adapter = FilterAdapter.of(new DsColumnMapping());
+
+    QueryPlansTest() {
+        super(QueryPlans.class);
+    }
+
+    @Test
+    @DisplayName("produce the same filters as translated from scratch")
+    void produceSameFilters() {
+        QueryPredicate<StgProject> predicate = eitherPredicate("31", true);
+        Collection<StructuredQuery.Filter> expected = fromPredicate(predicate, adapter);
+
+        Collection<StructuredQuery.Filter> first =
+                QueryPlans.filtersFor(PROJECT, predicate, adapter);
+        Collection<StructuredQuery.Filter> cached =
+                QueryPlans.filtersFor(PROJECT, predicate, adapter);
+
+        assertThat(first).containsExactlyElementsIn(expected);
+        assertThat(cached).containsExactlyElementsIn(expected);
+    }
+
+    @Test
+    @DisplayName("bind the parameter values of the predicates of the same shape")
+    void bindValues() {
+        QueryPredicate<StgProject> original = eitherPredicate("1", true);
+        QueryPredicate<StgProject> other = eitherPredicate("2", false);
+        assertThat(FilterTemplate.shapeOf(other)).isEqualTo(FilterTemplate.shapeOf(original));
+
+        FilterTemplate template = FilterTemplate.of(original);
+        Collection<StructuredQuery.Filter> filters = template.bind(other, adapter);
+
+        assertThat(template.isReusable()).isTrue();
+        assertThat(filters).containsExactlyElementsIn(fromPredicate(other, adapter));
+    }
+
+    @Test
+    @DisplayName("bind the equal parameter values at different positions separately")
+    void bindRepeatedValues() {
+        QueryPredicate<StgProject> repeated = bothArchivedAndNot("7", "7");
+        QueryPredicate<StgProject> distinct = bothArchivedAndNot("3", "9");
+        FilterTemplate template = FilterTemplate.of(repeated);
+
+        assertThat(template.bind(distinct, adapter))
+                .containsExactlyElementsIn(fromPredicate(distinct, adapter));
+
+        QueryPlans.filtersFor(PROJECT, repeated, adapter);
+        Collection<StructuredQuery.Filter> filters =
+                QueryPlans.filtersFor(PROJECT, distinct, adapter);
+
+        assertThat(filters).containsExactlyElementsIn(fromPredicate(distinct, adapter));
+    }
+
+    private static QueryPredicate<StgProject> eitherPredicate(String idString, boolean archived) {
+        StgProject.Query query =
+                StgProject.query()
+                          .either(project -> project.idString().isGreaterThan(idString)
+                                                    .where(ArchivedColumn.is(), archived),
+                                  project -> project.idString().isLessThan(idString))
+                          .build();
+        return query.subject()
+                    .predicate();
+    }
+
+    /**
+     * Creates a predicate, which has the same column and operator in both its branches,
+     * so that the branches differ only in the parameter values.
+     */
+    private static QueryPredicate<StgProject>
+    bothArchivedAndNot(String archivedAfter, String activeAfter) {
+        StgProject.Query query =
+                StgProject.query()
+                          .either(project -> project.idString().isGreaterThan(archivedAfter)
+                                                    .where(ArchivedColumn.is(), true),
+                                  project -> project.idString().isGreaterThan(activeAfter)
+                                                    .where(ArchivedColumn.is(), false))
+                          .build();
+        return query.subject()
+                    .predicate();
+    }
+}
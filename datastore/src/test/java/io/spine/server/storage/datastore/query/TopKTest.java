@@ -0,0 +1,90 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.storage.datastore.query;
+
+import com.google.common.collect.ImmutableList;
+import io.spine.testing.UtilityClassTest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("`TopK` should")
+final class TopKTest extends UtilityClassTest<TopK> {
+
+    TopKTest() {
+        super(TopK.class);
+    }
+
+    @Test
+    @DisplayName("select the least items in the ascending order")
+    void selectLeast() {
+        List<Integer> items = new Random(42).ints(1_000, 0, 10_000)
+                                            .boxed()
+                                            .collect(toList());
+        ImmutableList<Integer> top = TopK.least(items.iterator(), 20, Comparator.naturalOrder());
+        List<Integer> expected = items.stream()
+                                      .sorted()
+                                      .limit(20)
+                                      .collect(toList());
+        assertThat(top).containsExactlyElementsIn(expected)
+                       .inOrder();
+    }
+
+    @Test
+    @DisplayName("prefer the items met earlier among the equal ones")
+    void beStable() {
+        List<String> items = ImmutableList.of("b1", "a1", "b2", "a2", "a3", "b3");
+        Comparator<String> byLetter = Comparator.comparing(item -> item.charAt(0));
+        ImmutableList<String> top = TopK.least(items.iterator(), 4, byLetter);
+        assertThat(top).containsExactly("a1", "a2", "a3", "b1")
+                       .inOrder();
+    }
+
+    @Test
+    @DisplayName("return all items if there are fewer of them than requested")
+    void returnAll() {
+        List<Integer> items = ImmutableList.of(3, 1, 2);
+        ImmutableList<Integer> top = TopK.least(items.iterator(), 10, Comparator.naturalOrder());
+        assertThat(top).containsExactly(1, 2, 3)
+                       .inOrder();
+    }
+
+    @Test
+    @DisplayName("not accept non-positive number of items")
+    void rejectNonPositive() {
+        List<Integer> items = ImmutableList.of(1);
+        assertThrows(IllegalArgumentException.class,
+                     () -> TopK.least(items.iterator(), 0, Comparator.naturalOrder()));
+    }
+}
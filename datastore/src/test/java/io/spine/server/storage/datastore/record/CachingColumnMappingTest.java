@@ -0,0 +1,70 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.storage.datastore.record;
+
+import com.google.cloud.datastore.StringValue;
+import com.google.cloud.datastore.Value;
+import io.spine.server.storage.ColumnMapping;
+import io.spine.server.storage.ColumnTypeMapping;
+import io.spine.server.storage.datastore.config.DsColumnMapping;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@DisplayName("`CachingColumnMapping` should")
+final class CachingColumnMappingTest {
+
+    @Test
+    @DisplayName("resolve the type mapping once per type")
+    void resolveOnce() {
+        ColumnMapping<Value<?>> mapping = CachingColumnMapping.of(new DsColumnMapping());
+        ColumnTypeMapping<?, ? extends Value<?>> stringMapping = mapping.of(String.class);
+
+        assertThat(mapping.of(String.class)).isSameInstanceAs(stringMapping);
+        assertThat(mapping.of(Long.class)).isNotSameInstanceAs(stringMapping);
+        assertThat(mapping.ofNull()).isSameInstanceAs(mapping.ofNull());
+    }
+
+    @Test
+    @DisplayName("convert the values as the wrapped mapping")
+    void convertAsDelegate() {
+        ColumnMapping<Value<?>> mapping = CachingColumnMapping.of(new DsColumnMapping());
+        String value = "column value";
+
+        assertThat(mapping.of(String.class)
+                          .applyTo(value)).isEqualTo(StringValue.of(value));
+    }
+
+    @Test
+    @DisplayName("not wrap a caching mapping again")
+    void notWrapTwice() {
+        ColumnMapping<Value<?>> mapping = CachingColumnMapping.of(new DsColumnMapping());
+
+        assertThat(CachingColumnMapping.of(mapping)).isSameInstanceAs(mapping);
+    }
+}
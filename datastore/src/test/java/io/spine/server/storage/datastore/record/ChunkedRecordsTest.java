@@ -0,0 +1,94 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.storage.datastore.record;
+
+import com.google.cloud.datastore.Key;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@DisplayName("`ChunkedRecords` should")
+final class ChunkedRecordsTest {
+
+    private static final Key KEY = Key.newBuilder("test-project", "Record", "record-id")
+                                      .build();
+    private static final Key OTHER_NAMESPACE_KEY =
+            Key.newBuilder("test-project", "Record", "record-id")
+               .setNamespace("other")
+               .build();
+
+    private final AtomicInteger checks = new AtomicInteger();
+
+    @Test
+    @DisplayName("check once per namespace whether any record is chunked")
+    void checkOncePerNamespace() {
+        ChunkedRecords records = new ChunkedRecords(() -> {
+            checks.incrementAndGet();
+            return false;
+        });
+
+        assertThat(records.mayHaveChunks(KEY)).isFalse();
+        assertThat(records.mayHaveChunks(KEY)).isFalse();
+        assertThat(checks.get()).isEqualTo(1);
+
+        assertThat(records.mayHaveChunks(OTHER_NAMESPACE_KEY)).isFalse();
+        assertThat(checks.get()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("tell that the records may have chunks, if any is chunked")
+    void findChunked() {
+        ChunkedRecords records = new ChunkedRecords(() -> {
+            checks.incrementAndGet();
+            return true;
+        });
+
+        assertThat(records.mayHaveChunks(KEY)).isTrue();
+        assertThat(records.mayHaveChunks(KEY)).isTrue();
+        assertThat(checks.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("remember the records written in chunks, without checking")
+    void rememberChunked() {
+        ChunkedRecords records = new ChunkedRecords(() -> {
+            checks.incrementAndGet();
+            return false;
+        });
+
+        assertThat(records.mayHaveChunks(KEY)).isFalse();
+        records.onChunked(KEY);
+        records.onChunked(OTHER_NAMESPACE_KEY);
+
+        assertThat(records.mayHaveChunks(KEY)).isTrue();
+        assertThat(records.mayHaveChunks(OTHER_NAMESPACE_KEY)).isTrue();
+        assertThat(checks.get()).isEqualTo(1);
+    }
+}
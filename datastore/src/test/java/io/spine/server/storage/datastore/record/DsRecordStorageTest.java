@@ -26,39 +26,60 @@
 
 package io.spine.server.storage.datastore.record;
 
+import com.google.cloud.datastore.Blob;
 import com.google.cloud.datastore.Entity;
 import com.google.cloud.datastore.Key;
+import com.google.common.collect.ImmutableList;
+import com.google.datastore.v1.TransactionOptions;
 import com.google.protobuf.Timestamp;
+import io.spine.client.ArchivedColumn;
 import io.spine.core.Version;
 import io.spine.core.Versions;
 import io.spine.environment.Tests;
+import io.spine.query.RecordQuery;
 import io.spine.server.ServerEnvironment;
 import io.spine.server.storage.MessageRecordSpec;
 import io.spine.server.storage.RecordStorageDelegateTest;
 import io.spine.server.storage.RecordWithColumns;
 import io.spine.server.storage.datastore.BigDataTester;
+import io.spine.server.storage.datastore.DatastoreStorageFactory;
 import io.spine.server.storage.datastore.DatastoreWrapper;
 import io.spine.server.storage.datastore.Kind;
+import io.spine.server.storage.datastore.given.RecordingDatastore;
 import io.spine.server.storage.given.StgProjectStorage;
 import io.spine.test.storage.StgProject;
 import io.spine.test.storage.StgProjectId;
 import io.spine.testing.SlowTest;
 import io.spine.testing.server.storage.datastore.TestDatastoreStorageFactory;
+import io.spine.testing.server.storage.datastore.TestDatastores;
 import io.spine.type.TypeUrl;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
 
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.truth.Truth.assertThat;
 import static com.google.common.truth.Truth8.assertThat;
 import static io.spine.base.Time.currentTime;
+import static io.spine.server.ContextSpec.singleTenant;
 import static io.spine.server.storage.given.StgColumn.due_date;
 import static io.spine.server.storage.given.StgColumn.project_version;
 import static io.spine.server.storage.given.StgColumn.status;
+import static java.util.Collections.frequency;
+import static java.util.concurrent.Executors.newFixedThreadPool;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @DisplayName("`DsRecordStorage` should")
 final class DsRecordStorageTest extends RecordStorageDelegateTest {
@@ -66,6 +87,8 @@ final class DsRecordStorageTest extends RecordStorageDelegateTest {
     private static final TestDatastoreStorageFactory datastoreFactory =
             TestDatastoreStorageFactory.local();
 
+    private static final String SHARED = "shared";
+
     @BeforeAll
     static void configureStorageFactory() {
         ServerEnvironment.when(Tests.class)
@@ -111,6 +134,468 @@ final class DsRecordStorageTest extends RecordStorageDelegateTest {
                      .testBigDataOperations(storage);
     }
 
+    @Test
+    @DisplayName("count and check existence of the matching records")
+    void countAndCheckExistence() {
+        DsRecordStorage<StgProjectId, StgProject> storage = newDsStorage();
+        RecordQuery<StgProjectId, StgProject> all = StgProject.query()
+                                                             .build();
+        assertThat(storage.exists(all)).isFalse();
+        assertThat(storage.count(all)).isEqualTo(0);
+
+        int recordCount = 5;
+        writeRecords(storage, recordCount);
+        assertThat(storage.exists(all)).isTrue();
+        assertThat(storage.count(all)).isEqualTo(recordCount);
+    }
+
+    @Test
+    @DisplayName("count and check existence of the records without parsing them")
+    void countWithoutParsing() {
+        DsRecordStorage<StgProjectId, StgProject> storage = newDsStorage();
+        writeCorrupted(storage, false, SHARED, timestamp(1));
+        RecordQuery<StgProjectId, StgProject> all = StgProject.query()
+                                                             .build();
+
+        assertThat(storage.exists(all)).isTrue();
+        assertThat(storage.count(all)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("read the keys of the records matching several `OR` branches once")
+    void readKeysOfOverlappingBranches() {
+        DsRecordStorage<StgProjectId, StgProject> storage = newDsStorage();
+        ImmutableList<StgProject> written = writeRecords(storage, 4);
+        RecordQuery<StgProjectId, StgProject> overlapping =
+                StgProject.query()
+                          .either(project -> project.idString().isGreaterOrEqualTo(""),
+                                  project -> project.idString().isLessThan("\uFFFF"))
+                          .build();
+
+        ImmutableList<StgProjectId> ids = ImmutableList.copyOf(storage.index(overlapping));
+        long count = storage.count(overlapping);
+
+        ImmutableList<StgProjectId> expected = written.stream()
+                                                      .map(StgProject::getId)
+                                                      .collect(toImmutableList());
+        assertThat(ids).containsExactlyElementsIn(expected);
+        assertThat(count).isEqualTo(written.size());
+    }
+
+    @Test
+    @DisplayName("merge the sorted and limited results of overlapping `OR` branches")
+    void mergeSortedBranches() {
+        DsRecordStorage<StgProjectId, StgProject> storage = newDsStorage();
+        StgProject archivedNoDate = writeEntity(storage, true, "a", null);
+        StgProject sharedNoDate = writeEntity(storage, false, SHARED, null);
+        StgProject inBothBranches = writeEntity(storage, true, SHARED, timestamp(1));
+        StgProject archivedLater = writeEntity(storage, true, "d", timestamp(2));
+        StgProject sharedLatest = writeEntity(storage, false, SHARED, timestamp(3));
+        writeEntity(storage, false, "f", timestamp(0));
+
+        ImmutableList<StgProject> ascending = ImmutableList.copyOf(storage.readAll(
+                StgProject.query()
+                          .either(project -> project.where(ArchivedColumn.is(), true),
+                                  project -> project.idString().is(SHARED))
+                          .sortAscendingBy(StgProject.Column.dueDate())
+                          .limit(4)
+                          .build()
+        ));
+        ImmutableList<StgProject> descending = ImmutableList.copyOf(storage.readAll(
+                StgProject.query()
+                          .either(project -> project.where(ArchivedColumn.is(), true),
+                                  project -> project.idString().is(SHARED))
+                          .sortDescendingBy(StgProject.Column.dueDate())
+                          .limit(4)
+                          .build()
+        ));
+
+        assertThat(ascending).hasSize(4);
+        assertThat(ascending.subList(0, 2)).containsExactly(archivedNoDate, sharedNoDate);
+        assertThat(ascending.subList(2, 4)).containsExactly(inBothBranches, archivedLater)
+                                           .inOrder();
+        assertThat(descending).hasSize(4);
+        assertThat(descending.subList(0, 3)).containsExactly(sharedLatest,
+                                                             archivedLater,
+                                                             inBothBranches)
+                                            .inOrder();
+        assertThat(descending.get(3)).isAnyOf(archivedNoDate, sharedNoDate);
+    }
+
+    @Test
+    @DisplayName("convert the merged results of `OR` branches lazily")
+    void streamMergedBranches() {
+        DsRecordStorage<StgProjectId, StgProject> storage = newDsStorage();
+        StgProject inBothBranches = writeEntity(storage, true, SHARED, timestamp(1));
+        StgProject archived = writeEntity(storage, true, "b", timestamp(2));
+        StgProject shared = writeEntity(storage, false, SHARED, timestamp(3));
+        writeCorrupted(storage, true, "corrupted", timestamp(4));
+
+        Iterator<StgProject> records = storage.readAll(
+                StgProject.query()
+                          .either(project -> project.where(ArchivedColumn.is(), true),
+                                  project -> project.idString().is(SHARED))
+                          .sortAscendingBy(StgProject.Column.dueDate())
+                          .build()
+        );
+
+        assertThat(records.next()).isEqualTo(inBothBranches);
+        assertThat(records.next()).isEqualTo(archived);
+        assertThat(records.next()).isEqualTo(shared);
+        assertThrows(IllegalStateException.class, records::next);
+    }
+
+    @Test
+    @DisplayName("convert the results of a single Datastore query lazily")
+    void streamSingleQuery() {
+        DsRecordStorage<StgProjectId, StgProject> storage = newDsStorage();
+        StgProject first = writeEntity(storage, true, "a", timestamp(1));
+        StgProject second = writeEntity(storage, true, "b", timestamp(2));
+        writeCorrupted(storage, true, "corrupted", timestamp(3));
+
+        Iterator<StgProject> records = storage.readAll(
+                StgProject.query()
+                          .where(ArchivedColumn.is(), true)
+                          .sortAscendingBy(StgProject.Column.dueDate())
+                          .build()
+        );
+
+        assertThat(records.next()).isEqualTo(first);
+        assertThat(records.next()).isEqualTo(second);
+        assertThrows(IllegalStateException.class, records::next);
+    }
+
+    @Test
+    @DisplayName("keep only the chunks of the current version of a big record")
+    void deleteStaleChunks() {
+        DsRecordStorage<StgProjectId, StgProject> storage = newDsStorage();
+        StgProjectId id = newId();
+        Key key = storage.keyOf(id);
+
+        StgProject big = bigRecord(id);
+        storage.write(id, big);
+        ImmutableList<Key> firstVersion = chunksOf(key);
+        assertThat(firstVersion).isNotEmpty();
+        assertThat(storage.read(id)).hasValue(big);
+
+        StgProject bigger = bigRecord(id);
+        storage.write(id, bigger);
+        ImmutableList<Key> secondVersion = chunksOf(key);
+        assertThat(secondVersion).isNotEmpty();
+        assertThat(secondVersion).containsNoneIn(firstVersion);
+        assertThat(storage.read(id)).hasValue(bigger);
+
+        StgProject small = newStorageRecord(id);
+        storage.write(id, small);
+        assertThat(chunksOf(key)).isEmpty();
+        assertThat(storage.read(id)).hasValue(small);
+
+        storage.write(id, bigRecord(id));
+        assertThat(chunksOf(key)).isNotEmpty();
+        storage.delete(id);
+        assertThat(chunksOf(key)).isEmpty();
+        assertThat(storage.read(id)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("assemble the big records read by a query")
+    void assembleQueriedRecords() {
+        DsRecordStorage<StgProjectId, StgProject> storage = newDsStorage();
+        ImmutableList.Builder<StgProject> written = ImmutableList.builder();
+        for (int i = 0; i < 3; i++) {
+            StgProjectId id = newId();
+            StgProject big = bigRecord(id);
+            storage.write(id, big);
+            written.add(big);
+        }
+        written.addAll(writeRecords(storage, 3));
+
+        ImmutableList<StgProject> read = ImmutableList.copyOf(storage.readAll(
+                StgProject.query()
+                          .build()
+        ));
+
+        assertThat(read).containsExactlyElementsIn(written.build());
+    }
+
+    @Test
+    @DisplayName("read the records having columns named like the chunk properties used to be")
+    void readRecordsWithChunksColumn() {
+        DsRecordStorage<StgProjectId, StgProject> storage = newDsStorage();
+        StgProject record = newStorageRecord(newId());
+        write(entityOf(storage, record, false, SHARED, null)
+                      .set("chunks", 2)
+                      .set("chunkVersion", "version")
+                      .build());
+
+        ImmutableList<StgProject> read = ImmutableList.copyOf(storage.readAll(
+                StgProject.query()
+                          .build()
+        ));
+
+        assertThat(storage.read(record.getId())).hasValue(record);
+        assertThat(read).containsExactly(record);
+    }
+
+    @Test
+    @DisplayName("look for the stale chunks only if a record may be chunked")
+    void lookForStaleChunksOnlyIfChunked() {
+        RecordingDatastore recording = RecordingDatastore.wrap(TestDatastores.local());
+        TestDatastoreStorageFactory factory = TestDatastoreStorageFactory.basedOn(
+                DatastoreStorageFactory.newBuilderWithDefaults(recording.datastore())
+        );
+        try {
+            DsRecordStorage<StgProjectId, StgProject> storage = newDsStorage(factory);
+            recording.reset();
+
+            storage.writeAllRecords(newRecordsWithColumns(20));
+            writeRecords(storage, 3);
+            storage.delete(newId());
+            assertThat(frequency(recording.calls(), "Datastore.run")).isEqualTo(1);
+
+            StgProjectId id = newId();
+            storage.write(id, bigRecord(id));
+            recording.reset();
+
+            storage.writeAllRecords(newRecordsWithColumns(20));
+            assertThat(frequency(recording.calls(), "Datastore.run")).isEqualTo(20);
+        } finally {
+            factory.tearDown();
+        }
+    }
+
+    @Test
+    @DisplayName("read records page by page")
+    void readPages() {
+        DsRecordStorage<StgProjectId, StgProject> storage = newDsStorage();
+        ImmutableList<StgProject> written = writeRecords(storage, 5);
+        RecordQuery<StgProjectId, StgProject> all = StgProject.query()
+                                                             .build();
+        List<StgProject> read = new ArrayList<>();
+        @Nullable String token = null;
+        int pageCount = 0;
+        do {
+            RecordPage<StgProject> page = storage.readPage(all, 2, token);
+            assertThat(page.records().size()).isAtMost(2);
+            read.addAll(page.records());
+            token = page.nextPageToken()
+                        .orElse(null);
+            pageCount++;
+        } while (token != null);
+
+        assertThat(pageCount).isEqualTo(3);
+        assertThat(read).containsExactlyElementsIn(written);
+    }
+
+    @Test
+    @DisplayName("read in transactions, even if eventually consistent reads are enabled")
+    void readTransactionallyWithStrongConsistency() {
+        RecordingDatastore recording = RecordingDatastore.wrap(TestDatastores.local());
+        TestDatastoreStorageFactory factory = TestDatastoreStorageFactory.basedOn(
+                DatastoreStorageFactory.newBuilderWithDefaults(recording.datastore())
+                                       .enableTransactions(StgProject.class)
+                                       .enableEventualConsistency(StgProject.class)
+        );
+        try {
+            DsRecordStorage<StgProjectId, StgProject> storage = newDsStorage(factory);
+            RecordQuery<StgProjectId, StgProject> all = StgProject.query()
+                                                                 .build();
+            ImmutableList<StgProject> written = writeRecords(storage, 3);
+            recording.reset();
+
+            ImmutableList<StgProject> read = ImmutableList.copyOf(storage.readAll(all));
+            long count = storage.count(all);
+
+            assertThat(read).containsExactlyElementsIn(written);
+            assertThat(count).isEqualTo(written.size());
+            assertThat(recording.calls()).contains("Transaction.run");
+            assertThat(recording.calls()).doesNotContain("Datastore.run");
+        } finally {
+            factory.tearDown();
+        }
+    }
+
+    @Test
+    @DisplayName("run the transactional query reads in read-only transactions")
+    void readInReadOnlyTransactions() {
+        RecordingDatastore recording = RecordingDatastore.wrap(TestDatastores.local());
+        TestDatastoreStorageFactory factory = TestDatastoreStorageFactory.basedOn(
+                DatastoreStorageFactory.newBuilderWithDefaults(recording.datastore())
+                                       .enableTransactions(StgProject.class)
+        );
+        try {
+            DsRecordStorage<StgProjectId, StgProject> storage = newDsStorage(factory);
+            RecordQuery<StgProjectId, StgProject> all = StgProject.query()
+                                                                 .build();
+            ImmutableList<StgProject> written = writeRecords(storage, 3);
+            recording.reset();
+
+            ImmutableList<StgProject> read = ImmutableList.copyOf(storage.readAll(all));
+            boolean exists = storage.exists(all);
+            RecordPage<StgProject> page = storage.readPage(all, written.size() + 1, null);
+
+            assertThat(read).containsExactlyElementsIn(written);
+            assertThat(exists).isTrue();
+            assertThat(page.records()).containsExactlyElementsIn(written);
+            ImmutableList<TransactionOptions> transactions = recording.transactions();
+            assertThat(transactions).hasSize(3);
+            for (TransactionOptions options : transactions) {
+                assertThat(options.hasReadOnly()).isTrue();
+            }
+            assertThat(recording.calls()).doesNotContain("Datastore.run");
+        } finally {
+            factory.tearDown();
+        }
+    }
+
+    @Test
+    @DisplayName("run a single Datastore query as-is, even if queries are concurrent")
+    void readSingleQueryAsIs() {
+        ExecutorService executor = newFixedThreadPool(4);
+        RecordingDatastore recording = RecordingDatastore.wrap(TestDatastores.local());
+        TestDatastoreStorageFactory factory = TestDatastoreStorageFactory.basedOn(
+                DatastoreStorageFactory.newBuilderWithDefaults(recording.datastore())
+                                       .useExecutor(executor, 4)
+                                       .enableConcurrentQueries(StgProject.class, 3)
+        );
+        try {
+            DsRecordStorage<StgProjectId, StgProject> storage = newDsStorage(factory);
+            RecordQuery<StgProjectId, StgProject> all = StgProject.query()
+                                                                 .build();
+            ImmutableList<StgProject> written = writeRecords(storage, 3);
+            recording.reset();
+
+            ImmutableList<StgProject> read = ImmutableList.copyOf(storage.readAll(all));
+
+            assertThat(read).containsExactlyElementsIn(written);
+            assertThat(frequency(recording.calls(), "Datastore.run")).isEqualTo(1);
+        } finally {
+            factory.tearDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private static DsRecordStorage<StgProjectId, StgProject> newDsStorage() {
+        return newDsStorage(datastoreFactory);
+    }
+
+    private static DsRecordStorage<StgProjectId, StgProject>
+    newDsStorage(TestDatastoreStorageFactory factory) {
+        MessageRecordSpec<StgProjectId, StgProject> spec =
+                new MessageRecordSpec<>(StgProjectId.class, StgProject.class, StgProject::getId);
+        DsRecordStorage<StgProjectId, StgProject> storage =
+                (DsRecordStorage<StgProjectId, StgProject>)
+                        factory.createRecordStorage(
+                                singleTenant(DsRecordStorageTest.class.getSimpleName()), spec
+                        );
+        return storage;
+    }
+
+    /**
+     * Writes a new record as a Datastore entity with the passed column values.
+     *
+     * <p>The column values are set directly, so that they may be {@code null} or differ
+     * from the ones the record would have.
+     */
+    private StgProject writeEntity(DsRecordStorage<StgProjectId, StgProject> storage,
+                                   boolean archived,
+                                   String idStringValue,
+                                   com.google.cloud.@Nullable Timestamp dueDate) {
+        StgProject record = newStorageRecord(newId());
+        write(entityOf(storage, record, archived, idStringValue, dueDate).build());
+        return record;
+    }
+
+    /**
+     * Writes a new Datastore entity with the passed column values, which record bytes
+     * cannot be parsed.
+     */
+    private void writeCorrupted(DsRecordStorage<StgProjectId, StgProject> storage,
+                                boolean archived,
+                                String idStringValue,
+                                com.google.cloud.Timestamp dueDate) {
+        StgProject record = newStorageRecord(newId());
+        Blob unparsable = Blob.copyFrom(new byte[]{(byte) 0xFF, (byte) 0xFF});
+        write(entityOf(storage, record, archived, idStringValue, dueDate)
+                      .set(Entities.bytes, unparsable)
+                      .build());
+    }
+
+    private static Entity.Builder entityOf(DsRecordStorage<StgProjectId, StgProject> storage,
+                                           StgProject record,
+                                           boolean archived,
+                                           String idStringValue,
+                                           com.google.cloud.@Nullable Timestamp dueDate) {
+        Key key = storage.keyOf(record.getId());
+        Entity.Builder entity = Entity.newBuilder(Entities.fromMessage(record, key))
+                                      .set(ArchivedColumn.instance()
+                                                         .toString(), archived)
+                                      .set(StgProject.Column.idString()
+                                                            .name()
+                                                            .value(), idStringValue);
+        String dueDateColumn = StgProject.Column.dueDate()
+                                                .name()
+                                                .value();
+        if (dueDate == null) {
+            entity.setNull(dueDateColumn);
+        } else {
+            entity.set(dueDateColumn, dueDate);
+        }
+        return entity;
+    }
+
+    private static void write(Entity entity) {
+        datastoreFactory.newDatastoreWrapper(false)
+                        .createOrUpdate(entity);
+    }
+
+    /**
+     * Creates a record too big for a single Datastore Entity.
+     *
+     * <p>The name of the project is random, so that it cannot be compressed well.
+     */
+    private StgProject bigRecord(StgProjectId id) {
+        byte[] randomBytes = new byte[2 * RecordChunks.MAX_CHUNK_SIZE];
+        new Random().nextBytes(randomBytes);
+        String name = Base64.getEncoder()
+                            .encodeToString(randomBytes);
+        return newStorageRecord(id).toBuilder()
+                                   .setName(name)
+                                   .build();
+    }
+
+    private ImmutableList<RecordWithColumns<StgProjectId, StgProject>>
+    newRecordsWithColumns(int count) {
+        ImmutableList.Builder<RecordWithColumns<StgProjectId, StgProject>> result =
+                ImmutableList.builder();
+        for (int i = 0; i < count; i++) {
+            StgProjectId id = newId();
+            result.add(RecordWithColumns.of(id, newStorageRecord(id)));
+        }
+        return result.build();
+    }
+
+    private static ImmutableList<Key> chunksOf(Key key) {
+        return ImmutableList.copyOf(datastoreFactory.newDatastoreWrapper(false)
+                                                    .read(RecordChunks.chunksQuery(key)));
+    }
+
+    private static com.google.cloud.Timestamp timestamp(long seconds) {
+        return com.google.cloud.Timestamp.ofTimeSecondsAndNanos(seconds, 0);
+    }
+
+    private ImmutableList<StgProject>
+    writeRecords(DsRecordStorage<StgProjectId, StgProject> storage, int count) {
+        ImmutableList.Builder<StgProject> written = ImmutableList.builder();
+        for (int i = 0; i < count; i++) {
+            StgProjectId id = newId();
+            StgProject record = newStorageRecord(id);
+            storage.write(id, record);
+            written.add(record);
+        }
+        return written.build();
+    }
+
     @Test
     @DisplayName("persist entity columns beside the corresponding record")
     @SuppressWarnings("ProtoTimestampGetSecondsGetNano") /* Compares points in time.*/
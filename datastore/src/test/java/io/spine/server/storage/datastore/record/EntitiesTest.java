@@ -26,6 +26,7 @@
 
 package io.spine.server.storage.datastore.record;
 
+import com.google.cloud.datastore.Entity;
 import com.google.cloud.datastore.Key;
 import com.google.common.testing.NullPointerTester;
 import io.spine.server.storage.datastore.Kind;
@@ -69,4 +70,20 @@ final class EntitiesTest extends UtilityClassTest<Entities> {
 
         assertEquals(expected, actual);
     }
+
+    @Test
+    @DisplayName("convert a message to an entity and back")
+    void roundTrip() {
+        TypeUrl typeUrl = TypeUrl.from(StgProject.getDescriptor());
+        StgProject expected = StgProject.newBuilder()
+                                        .setName("Round trip")
+                                        .build();
+        Entity entity = Entities.fromMessage(expected, someKey());
+        StgProject actual = Entities.toMessage(entity, typeUrl);
+        StgProject converted = Entities.<StgProject>toMessage(typeUrl)
+                                       .apply(entity);
+
+        assertEquals(expected, actual);
+        assertEquals(expected, converted);
+    }
 }
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.storage.datastore.record;
+
+import com.google.cloud.datastore.Entity;
+import com.google.cloud.datastore.Key;
+import com.google.common.collect.ImmutableList;
+import io.spine.server.storage.datastore.config.GroupCommitSetting;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.IntStream.range;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("`GroupCommit` should")
+final class GroupCommitTest {
+
+    private static final int BATCH_SIZE = 4;
+    private static final Duration LONG_WINDOW = Duration.ofSeconds(10);
+
+    private final Queue<ImmutableList<Entity>> batches = new ConcurrentLinkedQueue<>();
+    private final Queue<Entity> singles = new ConcurrentLinkedQueue<>();
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = newFixedThreadPool(BATCH_SIZE);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("not accept a disabled setting")
+    void rejectDisabled() {
+        assertThrows(IllegalArgumentException.class,
+                     () -> new GroupCommit(GroupCommitSetting.disabled(),
+                                           batches::add, singles::add));
+    }
+
+    @Test
+    @DisplayName("write the entity alone when the window passes")
+    void flushOnTimeout() {
+        GroupCommit commit = new GroupCommit(GroupCommitSetting.enabled(Duration.ofMillis(1),
+                                                                        BATCH_SIZE),
+                                             batches::add, singles::add);
+        Entity entity = entity("single");
+        commit.write(entity);
+        assertThat(batches).containsExactly(ImmutableList.of(entity));
+    }
+
+    @Test
+    @DisplayName("write concurrent entities in a single batch once it is full")
+    void flushFullBatch() throws Exception {
+        GroupCommit commit = new GroupCommit(GroupCommitSetting.enabled(LONG_WINDOW, BATCH_SIZE),
+                                             batches::add, singles::add);
+        List<Entity> entities = range(0, BATCH_SIZE)
+                .mapToObj(i -> entity("entity-" + i))
+                .collect(toList());
+        List<Future<?>> writes = writeConcurrently(commit, entities);
+        for (Future<?> write : writes) {
+            write.get();
+        }
+        assertThat(batches).hasSize(1);
+        assertThat(batches.peek()).containsExactlyElementsIn(entities);
+        assertThat(singles).isEmpty();
+    }
+
+    @Test
+    @DisplayName("keep the last of the entities with the same key")
+    void keepLastWrite() throws Exception {
+        GroupCommit commit = new GroupCommit(GroupCommitSetting.enabled(Duration.ofMillis(200),
+                                                                        BATCH_SIZE),
+                                             batches::add, singles::add);
+        Entity first = entity("same", "first");
+        Entity second = entity("same", "second");
+        Future<?> firstWrite = executor.submit(() -> commit.write(first));
+        Thread.sleep(20);
+        commit.write(second);
+        firstWrite.get();
+
+        assertThat(batches).containsExactly(ImmutableList.of(second));
+    }
+
+    @Test
+    @DisplayName("report the failure to the writer of the failed entity only")
+    void separateFailures() throws Exception {
+        Entity failing = entity("failing");
+        IllegalStateException failure = new IllegalStateException("Cannot write the entity.");
+        GroupCommit commit = new GroupCommit(
+                GroupCommitSetting.enabled(LONG_WINDOW, BATCH_SIZE),
+                batch -> {
+                    throw new IllegalStateException("Cannot write the batch.");
+                },
+                entity -> {
+                    if (entity.equals(failing)) {
+                        throw failure;
+                    }
+                    singles.add(entity);
+                });
+        List<Entity> entities = range(1, BATCH_SIZE)
+                .mapToObj(i -> entity("entity-" + i))
+                .collect(toList());
+        List<Entity> all = ImmutableList.<Entity>builder()
+                .addAll(entities)
+                .add(failing)
+                .build();
+        List<Future<?>> writes = writeConcurrently(commit, all);
+
+        for (int i = 0; i < entities.size(); i++) {
+            writes.get(i).get();
+        }
+        ExecutionException thrown = assertThrows(ExecutionException.class,
+                                                  () -> writes.get(entities.size()).get());
+        assertThat(thrown).hasCauseThat().isSameInstanceAs(failure);
+        assertThat(singles).containsExactlyElementsIn(entities);
+    }
+
+    private List<Future<?>> writeConcurrently(GroupCommit commit, List<Entity> entities) {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> writes = entities
+                .stream()
+                .map(entity -> executor.submit(() -> {
+                    start.await();
+                    commit.write(entity);
+                    return null;
+                }))
+                .collect(toList());
+        start.countDown();
+        return writes;
+    }
+
+    private static Entity entity(String name) {
+        return entity(name, name);
+    }
+
+    private static Entity entity(String name, String value) {
+        Key key = Key.newBuilder("test-project", "test.group.Kind", name)
+                     .build();
+        return Entity.newBuilder(key)
+                     .set("value", value)
+                     .build();
+    }
+}
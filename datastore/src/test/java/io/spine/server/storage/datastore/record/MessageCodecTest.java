@@ -0,0 +1,90 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.storage.datastore.record;
+
+import com.google.cloud.datastore.Blob;
+import com.google.common.base.Strings;
+import io.spine.server.storage.datastore.config.CompressionSetting;
+import io.spine.test.storage.StgProject;
+import io.spine.type.TypeUrl;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("`MessageCodec` should")
+final class MessageCodecTest {
+
+    private static final TypeUrl PROJECT = TypeUrl.from(StgProject.getDescriptor());
+
+    @Test
+    @DisplayName("be cached per type")
+    void cached() {
+        MessageCodec<StgProject> codec = MessageCodec.of(PROJECT);
+        assertThat(MessageCodec.<StgProject>of(PROJECT)).isSameInstanceAs(codec);
+        assertThat(codec.defaultInstance()).isEqualTo(StgProject.getDefaultInstance());
+    }
+
+    @Test
+    @DisplayName("decode an encoded message")
+    void decodeEncoded() {
+        StgProject project = StgProject.newBuilder()
+                                       .setName("Encoded")
+                                       .build();
+        MessageCodec<StgProject> codec = MessageCodec.of(PROJECT);
+        Blob blob = MessageCodec.encode(project, CompressionSetting.disabled());
+        assertThat(codec.decode(blob)).isEqualTo(project);
+    }
+
+    @Test
+    @DisplayName("compress the messages of the configured size")
+    void compress() {
+        StgProject project = StgProject.newBuilder()
+                                       .setName(Strings.repeat("Compressible name. ", 100))
+                                       .build();
+        int size = project.getSerializedSize();
+        MessageCodec<StgProject> codec = MessageCodec.of(PROJECT);
+
+        Blob compressed = MessageCodec.encode(project, CompressionSetting.enabled(size));
+        assertThat(Compression.isCompressed(compressed)).isTrue();
+        assertThat(compressed.getLength()).isLessThan(size);
+        assertThat(codec.decode(compressed)).isEqualTo(project);
+
+        Blob uncompressed = MessageCodec.encode(project, CompressionSetting.enabled(size + 1));
+        assertThat(Compression.isCompressed(uncompressed)).isFalse();
+        assertThat(codec.decode(uncompressed)).isEqualTo(project);
+    }
+
+    @Test
+    @DisplayName("fail to decode malformed bytes")
+    void failOnMalformed() {
+        MessageCodec<StgProject> codec = MessageCodec.of(PROJECT);
+        Blob malformed = Blob.copyFrom(new byte[]{(byte) 0xFF, (byte) 0xFF});
+        assertThrows(IllegalStateException.class, () -> codec.decode(malformed));
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.server.storage.datastore.record;
+
+import com.google.cloud.datastore.Blob;
+import com.google.cloud.datastore.BlobValue;
+import com.google.cloud.datastore.Entity;
+import com.google.cloud.datastore.Key;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.testing.NullPointerTester;
+import io.spine.server.storage.datastore.Kind;
+import io.spine.testing.UtilityClassTest;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+import static io.spine.server.storage.datastore.record.Entities.bytes;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("`RecordChunks` should")
+final class RecordChunksTest extends UtilityClassTest<RecordChunks> {
+
+    private static final Key KEY = Key.newBuilder("test-project", "Record", "record-id")
+                                      .build();
+
+    RecordChunksTest() {
+        super(RecordChunks.class);
+    }
+
+    @Override
+    protected void configure(NullPointerTester tester) {
+        super.configure(tester);
+        tester.setDefault(Entity.class, recordOfSize(1))
+              .setDefault(Key.class, KEY)
+              .setDefault(Kind.class, Kind.of(KEY.getKind()));
+    }
+
+    @Test
+    @DisplayName("keep small records as-is")
+    void keepSmall() {
+        Entity record = recordOfSize(10);
+        ImmutableList<Entity> result = RecordChunks.split(record, 10);
+
+        assertThat(result).containsExactly(record);
+        assertThat(RecordChunks.isChunked(record)).isFalse();
+    }
+
+    @Test
+    @DisplayName("not treat the records with the columns named alike as chunked")
+    void notChunkedByColumns() {
+        Entity record = Entity.newBuilder(recordOfSize(10))
+                              .set("chunks", 3)
+                              .set("chunkVersion", "version")
+                              .build();
+
+        assertThat(RecordChunks.isChunked(record)).isFalse();
+        assertThat(RecordChunks.split(record, 10)).containsExactly(record);
+    }
+
+    @Test
+    @DisplayName("split big records into chunks and assemble them back")
+    void splitAndAssemble() {
+        Entity record = recordOfSize(25);
+        ImmutableList<Entity> result = RecordChunks.split(record, 10);
+
+        assertThat(result).hasSize(4);
+        Entity chunkedRecord = result.get(3);
+        assertThat(chunkedRecord.getKey()).isEqualTo(KEY);
+        assertThat(chunkedRecord.contains(bytes)).isFalse();
+        assertThat(chunkedRecord.getString("column")).isEqualTo("value");
+        assertThat(RecordChunks.isChunked(chunkedRecord)).isTrue();
+
+        ImmutableList<Entity> chunks = result.subList(0, 3);
+        ImmutableList<Key> chunkKeys = RecordChunks.chunkKeys(chunkedRecord);
+        assertThat(chunkKeys).containsExactlyElementsIn(
+                chunks.stream()
+                      .map(Entity::getKey)
+                      .toArray()
+        ).inOrder();
+        chunkKeys.forEach(key -> assertThat(key.getParent()).isEqualTo(KEY));
+
+        Entity assembled = RecordChunks.assemble(chunkedRecord, chunks);
+        assertThat(assembled).isEqualTo(record);
+    }
+
+    @Test
+    @DisplayName("give the chunks a new version each time a record is split")
+    void versionChunks() {
+        Entity record = recordOfSize(25);
+        ImmutableList<Key> first = RecordChunks.chunkKeys(RecordChunks.split(record, 10)
+                                                                      .get(3));
+        ImmutableList<Key> second = RecordChunks.chunkKeys(RecordChunks.split(record, 10)
+                                                                       .get(3));
+
+        assertThat(second).containsNoneIn(first);
+    }
+
+    @Test
+    @DisplayName("select the chunks of the other versions as stale")
+    void selectStaleChunks() {
+        Entity record = recordOfSize(25);
+        Entity oldRecord = RecordChunks.split(record, 10)
+                                       .get(3);
+        Entity newRecord = RecordChunks.split(record, 10)
+                                       .get(3);
+        ImmutableList<Key> oldChunks = RecordChunks.chunkKeys(oldRecord);
+        ImmutableList<Key> newChunks = RecordChunks.chunkKeys(newRecord);
+        Key nestedRecord = Key.newBuilder(KEY, "NestedRecord", "nested-id")
+                              .build();
+        Key nestedChunk = Key.newBuilder(nestedRecord, RecordChunks.CHUNK_KIND, "version/1")
+                             .build();
+        ImmutableList<Key> found = ImmutableList.<Key>builder()
+                                                .addAll(oldChunks)
+                                                .addAll(newChunks)
+                                                .add(nestedChunk)
+                                                .build();
+
+        assertThat(RecordChunks.staleChunks(newRecord, found))
+                .containsExactlyElementsIn(oldChunks);
+        assertThat(RecordChunks.staleChunks(record, found))
+                .containsExactlyElementsIn(Iterables.concat(oldChunks, newChunks));
+        assertThat(RecordChunks.staleChunks(KEY, found, ImmutableList.of()))
+                .containsExactlyElementsIn(Iterables.concat(oldChunks, newChunks));
+    }
+
+    @Test
+    @DisplayName("tell the kind of the record a chunk belongs to")
+    void tellChunkKind() {
+        Key chunk = RecordChunks.chunkKeys(RecordChunks.split(recordOfSize(25), 10)
+                                                       .get(3))
+                                .get(0);
+
+        assertThat(RecordChunks.isChunkOf(chunk, Kind.of(KEY.getKind()))).isTrue();
+        assertThat(RecordChunks.isChunkOf(chunk, Kind.of("OtherRecord"))).isFalse();
+    }
+
+    @Test
+    @DisplayName("fail to assemble a record with a missing chunk")
+    void failOnMissingChunk() {
+        ImmutableList<Entity> result = RecordChunks.split(recordOfSize(25), 10);
+        Entity chunkedRecord = result.get(3);
+
+        List<@Nullable Entity> chunks = Arrays.asList(result.get(0), null, result.get(2));
+
+        assertThrows(IllegalStateException.class,
+                     () -> RecordChunks.assemble(chunkedRecord, chunks));
+    }
+
+    private static Entity recordOfSize(int size) {
+        byte[] recordBytes = new byte[size];
+        for (int i = 0; i < size; i++) {
+            recordBytes[i] = (byte) i;
+        }
+        BlobValue value = BlobValue.newBuilder(Blob.copyFrom(recordBytes))
+                                   .setExcludeFromIndexes(true)
+                                   .build();
+        return Entity.newBuilder(KEY)
+                     .set(bytes, value)
+                     .set("column", "value")
+                     .build();
+    }
+}
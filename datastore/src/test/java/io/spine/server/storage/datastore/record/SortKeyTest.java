@@ -0,0 +1,160 @@
+/*
+ * Copyright 2021, TeamDev. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package io.spine.server.storage.datastore.record;
+
+import com.google.cloud.Timestamp;
+import com.google.cloud.datastore.Entity;
+import com.google.cloud.datastore.Key;
+import com.google.common.collect.ImmutableList;
+import io.spine.query.SortBy;
+import io.spine.test.storage.StgProject;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.truth.Truth.assertThat;
+import static io.spine.test.storage.StgProject.Column.dueDate;
+import static io.spine.test.storage.StgProject.Column.idString;
+
+@DisplayName("`SortKey` should")
+final class SortKeyTest {
+
+    private static final String ID_STRING = idString().name()
+                                                      .value();
+    private static final String DUE_DATE = dueDate().name()
+                                                    .value();
+
+    private static final Timestamp EARLIER = Timestamp.ofTimeSecondsAndNanos(100, 0);
+    private static final Timestamp LATER = Timestamp.ofTimeSecondsAndNanos(200, 0);
+
+    @Test
+    @DisplayName("put `null` values first in the ascending order")
+    void nullsFirstAscending() {
+        ImmutableList<SortBy<?, StgProject>> sorting =
+                StgProject.query()
+                          .sortAscendingBy(idString())
+                          .build()
+                          .sorting();
+        Entity b = entity("b", null);
+        Entity none = entity(null, null);
+        Entity a = entity("a", null);
+
+        ImmutableList<Entity> entities = ImmutableList.of(b, none, a);
+
+        List<Entity> sorted = sortByKeys(entities, sorting);
+
+        assertThat(sorted).containsExactly(none, a, b)
+                          .inOrder();
+        assertThat(sorted).containsExactlyElementsIn(sortByComparator(entities, sorting))
+                          .inOrder();
+    }
+
+    @Test
+    @DisplayName("put `null` values last in the descending order")
+    void nullsLastDescending() {
+        ImmutableList<SortBy<?, StgProject>> sorting =
+                StgProject.query()
+                          .sortDescendingBy(idString())
+                          .build()
+                          .sorting();
+        Entity b = entity("b", null);
+        Entity none = entity(null, null);
+        Entity a = entity("a", null);
+
+        ImmutableList<Entity> entities = ImmutableList.of(a, none, b);
+
+        List<Entity> sorted = sortByKeys(entities, sorting);
+
+        assertThat(sorted).containsExactly(b, a, none)
+                          .inOrder();
+        assertThat(sorted).containsExactlyElementsIn(sortByComparator(entities, sorting))
+                          .inOrder();
+    }
+
+    @Test
+    @DisplayName("compare by the next column if the values of the previous one are equal")
+    void compareMultipleColumns() {
+        ImmutableList<SortBy<?, StgProject>> sorting =
+                StgProject.query()
+                          .sortAscendingBy(idString())
+                          .sortDescendingBy(dueDate())
+                          .build()
+                          .sorting();
+        Entity noneEarlier = entity(null, EARLIER);
+        Entity noneLater = entity(null, LATER);
+        Entity aEarlier = entity("a", EARLIER);
+        Entity aLater = entity("a", LATER);
+        Entity aNone = entity("a", null);
+        ImmutableList<Entity> entities =
+                ImmutableList.of(aNone, aEarlier, noneEarlier, aLater, noneLater);
+
+        List<Entity> byKeys = sortByKeys(entities, sorting);
+        List<Entity> byComparator = sortByComparator(entities, sorting);
+
+        assertThat(byKeys).containsExactly(noneLater, noneEarlier, aLater, aEarlier, aNone)
+                          .inOrder();
+        assertThat(byComparator).containsExactlyElementsIn(byKeys)
+                                .inOrder();
+    }
+
+    private static List<Entity>
+    sortByKeys(List<Entity> entities, ImmutableList<SortBy<?, StgProject>> sorting) {
+        return entities.stream()
+                       .map(SortKey.extractor(sorting))
+                       .sorted()
+                       .map(SortKey::entity)
+                       .collect(toImmutableList());
+    }
+
+    private static List<Entity>
+    sortByComparator(List<Entity> entities, ImmutableList<SortBy<?, StgProject>> sorting) {
+        List<Entity> result = new ArrayList<>(entities);
+        result.sort(DsEntityComparator.implementing(sorting));
+        return result;
+    }
+
+    private static Entity entity(@Nullable String idString, @Nullable Timestamp dueDate) {
+        String name = String.valueOf(idString) + '-' + dueDate;
+        Entity.Builder builder =
+                Entity.newBuilder(Key.newBuilder("test-project", "spine.test.Project", name)
+                                     .build());
+        if (idString == null) {
+            builder.setNull(ID_STRING);
+        } else {
+            builder.set(ID_STRING, idString);
+        }
+        if (dueDate == null) {
+            builder.setNull(DUE_DATE);
+        } else {
+            builder.set(DUE_DATE, dueDate);
+        }
+        return builder.build();
+    }
+}
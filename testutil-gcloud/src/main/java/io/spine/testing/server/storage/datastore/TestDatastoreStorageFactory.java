@@ -87,7 +87,7 @@ public class TestDatastoreStorageFactory extends DatastoreStorageFactory {
     @Internal
     @Override
     public DatastoreWrapper newDatastoreWrapper(boolean multitenant) {
-        TestDatastoreWrapper wrapper = TestDatastoreWrapper.wrap(datastore(), false);
+        TestDatastoreWrapper wrapper = TestDatastoreWrapper.wrap(datastore(), false, execution());
         allCreatedWrappers.add(wrapper);
         return wrapper;
     }
@@ -29,12 +29,15 @@ package io.spine.testing.server.storage.datastore;
 import com.google.cloud.datastore.Datastore;
 import com.google.cloud.datastore.DatastoreException;
 import com.google.cloud.datastore.Entity;
+import com.google.cloud.datastore.Key;
 import com.google.cloud.datastore.KeyFactory;
 import com.google.cloud.datastore.Query;
 import com.google.cloud.datastore.StructuredQuery;
 import com.google.common.annotations.VisibleForTesting;
 import io.spine.server.storage.datastore.DatastoreWrapper;
 import io.spine.server.storage.datastore.Kind;
+import io.spine.server.storage.datastore.ParallelExecution;
+import io.spine.server.storage.datastore.record.RecordId;
 import io.spine.server.storage.datastore.tenant.NamespaceSupplier;
 
 import java.util.ArrayList;
@@ -75,7 +78,13 @@ public class TestDatastoreWrapper extends DatastoreWrapper {
     private final boolean waitForConsistency;
 
     protected TestDatastoreWrapper(Datastore datastore, boolean waitForConsistency) {
-        super(datastore, NamespaceSupplier.singleTenant());
+        this(datastore, waitForConsistency, ParallelExecution.sequential());
+    }
+
+    protected TestDatastoreWrapper(Datastore datastore,
+                                   boolean waitForConsistency,
+                                   ParallelExecution execution) {
+        super(datastore, NamespaceSupplier.singleTenant(), execution);
         this.waitForConsistency = waitForConsistency;
     }
 
@@ -93,6 +102,19 @@ public class TestDatastoreWrapper extends DatastoreWrapper {
         return new TestDatastoreWrapper(datastore, waitForConsistency);
     }
 
+    /**
+     * Wraps a given Datastore, sending the independent requests according
+     * to the passed {@code execution}.
+     *
+     * @see #wrap(Datastore, boolean)
+     */
+    public static TestDatastoreWrapper
+    wrap(Datastore datastore, boolean waitForConsistency, ParallelExecution execution) {
+        checkNotNull(datastore);
+        checkNotNull(execution);
+        return new TestDatastoreWrapper(datastore, waitForConsistency, execution);
+    }
+
     @Override
     public KeyFactory keyFactory(Kind kind) {
         checkNotNull(kind);
@@ -100,6 +122,13 @@ public class TestDatastoreWrapper extends DatastoreWrapper {
         return super.keyFactory(kind);
     }
 
+    @Override
+    public Key keyFor(Kind kind, RecordId recordId) {
+        checkNotNull(kind);
+        kindsCache.add(kind);
+        return super.keyFor(kind, recordId);
+    }
+
     @Override
     public void createOrUpdate(Entity entity) {
         super.createOrUpdate(entity);
@@ -162,6 +191,7 @@ public class TestDatastoreWrapper extends DatastoreWrapper {
                     "Cannot cleanup the table: %s. Remaining entity count is %d",
                     table, remainingEntityCount);
         }
+        dropChunks(table);
     }
 
     private void waitForConsistency() {